@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// toModel for one element, as it runs inside a request (link templates already resolved for that request)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AssemblerBenchmark {
+
+    private CustomerModelAssembler customerAssembler;
+    private OrderModelAssembler orderAssembler;
+    private Customer customer;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        LinkFactory links = new LinkFactory();
+        orderAssembler = new OrderModelAssembler(links);
+        customerAssembler = new CustomerModelAssembler(links, orderAssembler);
+        customer = new Customer(1L, "Jose", "Joaquim", LocalDate.of(1746, 11, 12));
+        order = new Order(1L, "Coffee", Status.IN_PROGRESS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public EntityModel<Customer> customerToModel() {
+        return customerAssembler.toModel(customer);
+    }
+
+    @Benchmark
+    public EntityModel<Order> orderToModel() {
+        return orderAssembler.toModel(order);
+    }
+}
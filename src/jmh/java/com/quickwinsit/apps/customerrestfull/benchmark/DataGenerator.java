@@ -0,0 +1,181 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import org.flywaydb.core.Flyway;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Seeds customer and customer_order with synthetic rows through plain JDBC batches:
+//   mvn -Pbenchmark test-compile exec:exec@generate-data -Ddata.args="--customers=1000000 --orders=2000000"
+// --url/--user/--password select the database (default: an H2 file under target/), --seed makes runs repeatable.
+// For Postgres add reWriteBatchedInserts=true to the URL.
+public class DataGenerator {
+    private static final int BATCH_SIZE = 1000;
+    private static final int SEQUENCE_INCREMENT = 50;
+
+    private static final String[] FIRST_NAMES = {"Ana", "Joao", "Maria", "Jose", "Antonio", "Francisca", "Carlos",
+            "Paulo", "Pedro", "Lucas", "Luiz", "Marcos", "Luis", "Gabriel", "Rafael", "Daniel", "Marcelo", "Bruno",
+            "Eduardo", "Felipe", "Raimundo", "Rodrigo", "Manoel", "Mateus", "Andre", "Fernando", "Fabio", "Leonardo",
+            "Gustavo", "Guilherme", "Leandro", "Tiago", "Anderson", "Ricardo", "Marcio", "Jorge", "Sebastiao",
+            "Alexandre", "Roberto", "Edson", "Diego", "Vitor", "Sergio", "Claudio", "Matheus", "Thiago", "Geraldo",
+            "Adriano", "Luciano", "Julio", "Renato", "Alex", "Vinicius", "Rogerio", "Samuel", "Ronaldo", "Mario",
+            "Flavio", "Igor", "Juliana", "Adriana", "Marcia", "Fernanda", "Patricia", "Aline", "Sandra", "Camila"};
+    private static final String[] LAST_NAMES = {"Silva", "Santos", "Oliveira", "Souza", "Rodrigues", "Ferreira",
+            "Alves", "Pereira", "Lima", "Gomes", "Costa", "Ribeiro", "Martins", "Carvalho", "Almeida", "Lopes",
+            "Soares", "Fernandes", "Vieira", "Barbosa", "Rocha", "Dias", "Nascimento", "Andrade", "Moreira", "Nunes",
+            "Marques", "Machado", "Mendes", "Freitas", "Cardoso", "Ramos", "Goncalves", "Santana", "Teixeira",
+            "Araujo", "Pinto", "Correia", "Monteiro", "Cavalcanti", "Moura", "Batista", "Campos", "Castro", "Reis"};
+    private static final String[] PRODUCTS = {"Coffee", "Tea", "Laptop", "Phone", "Monitor", "Keyboard", "Mouse",
+            "Desk", "Chair", "Headphones", "Camera", "Printer", "Router", "Tablet", "Speaker", "Backpack"};
+    private static final LocalDate OLDEST_BIRTH_DATE = LocalDate.of(1930, 1, 1);
+    private static final int BIRTH_DATE_RANGE_DAYS = 75 * 365;
+
+    public static void main(String[] args) throws SQLException {
+        // Outside Spring Boot logback defaults to DEBUG for everything
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        Arguments arguments = new Arguments(args);
+        String url = arguments.get("url", "jdbc:h2:file:./target/loadtest;DB_CLOSE_ON_EXIT=FALSE");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url,
+                arguments.get("user", "sa"),
+                arguments.get("password", ""));
+
+        // Same locations as spring.flyway.locations
+        Flyway.configure().dataSource(dataSource).baselineOnMigrate(true).baselineVersion("1")
+                .locations("classpath:db/migration", "classpath:db/vendor/" + DatabaseDriver.fromJdbcUrl(url).getId())
+                .load().migrate();
+
+        long started = System.nanoTime();
+        Seeded seeded = generate(dataSource, arguments.getLong("customers", 1_000_000),
+                arguments.getLong("orders", 1_000_000), arguments.getLong("seed", 42));
+        System.out.printf("Seeded customers %d..%d and orders %d..%d in %d ms%n",
+                seeded.firstCustomerId, seeded.lastCustomerId, seeded.firstOrderId, seeded.lastOrderId,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Appends after the current maximum ids, then moves the shared sequence past them
+    public static Seeded generate(DataSource dataSource, long customers, long orders, long seed) throws SQLException {
+        Random random = new Random(seed);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long firstCustomerId = maxId(connection, "customer") + 1;
+            long firstOrderId = maxId(connection, "customer_order") + 1;
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into customer (id, last_name, first_name, birth_date, version) values (?, ?, ?, ?, 0)")) {
+                for (long i = 0; i < customers; i++) {
+                    insert.setLong(1, firstCustomerId + i);
+                    insert.setString(2, LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                    insert.setString(3, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)]);
+                    insert.setDate(4, Date.valueOf(OLDEST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DATE_RANGE_DAYS))));
+                    addToBatch(connection, insert, i);
+                }
+                flush(connection, insert);
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "insert into customer_order (id, description, status, customer_id, version) values (?, ?, ?, ?, 0)")) {
+                for (long i = 0; i < orders; i++) {
+                    insert.setLong(1, firstOrderId + i);
+                    insert.setString(2, PRODUCTS[random.nextInt(PRODUCTS.length)] + " x" + (1 + random.nextInt(9)));
+                    insert.setInt(3, status(random).ordinal());
+                    // Each order goes to one of the customers seeded in this run, if there are any
+                    if (customers > 0) {
+                        insert.setLong(4, firstCustomerId + (long) (random.nextDouble() * customers));
+                    } else {
+                        insert.setNull(4, Types.BIGINT);
+                    }
+                    addToBatch(connection, insert, i);
+                }
+                flush(connection, insert);
+            }
+
+            // Hibernate's pooled optimizer hands out (value - increment, value], so leave a full block of room
+            long next = Math.max(firstCustomerId + customers, firstOrderId + orders) + SEQUENCE_INCREMENT;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("alter sequence hibernate_sequence restart with " + next);
+            }
+            connection.commit();
+
+            return new Seeded(firstCustomerId, firstCustomerId + customers - 1, firstOrderId, firstOrderId + orders - 1);
+        }
+    }
+
+    // Mostly open orders, so the cancel/complete paths have work to do
+    private static Status status(Random random) {
+        int roll = random.nextInt(10);
+        return roll < 6 ? Status.IN_PROGRESS : roll < 9 ? Status.COMPLETED : Status.CANCELLED;
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select coalesce(max(id), 0) from " + table)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private static void addToBatch(Connection connection, PreparedStatement insert, long row) throws SQLException {
+        insert.addBatch();
+        if ((row + 1) % BATCH_SIZE == 0) {
+            flush(connection, insert);
+        }
+    }
+
+    private static void flush(Connection connection, PreparedStatement insert) throws SQLException {
+        insert.executeBatch();
+        connection.commit();
+    }
+
+    public static class Seeded {
+        final long firstCustomerId;
+        final long lastCustomerId;
+        final long firstOrderId;
+        final long lastOrderId;
+
+        Seeded(long firstCustomerId, long lastCustomerId, long firstOrderId, long lastOrderId) {
+            this.firstCustomerId = firstCustomerId;
+            this.lastCustomerId = lastCustomerId;
+            this.firstOrderId = firstOrderId;
+            this.lastOrderId = lastOrderId;
+        }
+    }
+}
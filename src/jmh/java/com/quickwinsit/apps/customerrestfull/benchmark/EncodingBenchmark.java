@@ -0,0 +1,163 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.quickwinsit.apps.customerrestfull.controller.ProtobufMessageConverter;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerDto;
+import com.quickwinsit.apps.customerrestfull.proto.CustomerMessages;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Each representation a caller can negotiate, through the converter MVC uses for it: writing one customer and a
+// collection, and reading a customer request body. Payload sizes are printed once per fork, before the measurements.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EncodingBenchmark {
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    public String format;
+
+    @Param({"100"})
+    public int size;
+
+    private HttpMessageConverter<Object> converter;
+    private ObjectMapper mapper;
+    private EntityModel<Customer> customer;
+    private CollectionModel<EntityModel<Customer>> customers;
+    private byte[] dto;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (format) {
+            case "json":
+                mapper = halMapper(new JsonFactory());
+                converter = new MappingJackson2HttpMessageConverter(mapper);
+                break;
+            case "cbor":
+                mapper = halMapper(new CBORFactory());
+                converter = new MappingJackson2CborHttpMessageConverter(mapper);
+                break;
+            case "smile":
+                mapper = halMapper(new SmileFactory());
+                converter = new MappingJackson2SmileHttpMessageConverter(mapper);
+                break;
+            case "protobuf":
+                converter = new ProtobufMessageConverter();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+
+        customer = model(1L);
+        List<EntityModel<Customer>> models = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            models.add(model(id));
+        }
+        customers = CollectionModel.of(models, Link.of("http://localhost/customers"));
+        dto = dto();
+
+        System.out.printf("%n%s: customer %d bytes, %d customers %d bytes, request body %d bytes%n", format,
+                writeEntityModel().length, size, writeCollectionModel().length, dto.length);
+    }
+
+    private static ObjectMapper halMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        return mapper;
+    }
+
+    private static EntityModel<Customer> model(long id) {
+        return EntityModel.of(new Customer(id, "Jose", "Joaquim", LocalDate.of(1746, 11, 12)),
+                Link.of("http://localhost/customers/" + id),
+                Link.of("http://localhost/customers", "customers"));
+    }
+
+    private byte[] dto() throws IOException {
+        if (mapper == null) {
+            return CustomerMessages.Customer.newBuilder()
+                    .setLastName("Jose")
+                    .setFirstName("Joaquim")
+                    .setBirthDate((int) LocalDate.of(1746, 11, 12).toEpochDay())
+                    .build().toByteArray();
+        }
+        CustomerDto customerDto = new CustomerDto();
+        customerDto.setLastName("Jose");
+        customerDto.setFirstName("Joaquim");
+        customerDto.setBirthDate(LocalDate.of(1746, 11, 12));
+        return mapper.writeValueAsBytes(customerDto);
+    }
+
+    @Benchmark
+    public byte[] writeEntityModel() throws IOException {
+        return write(customer);
+    }
+
+    @Benchmark
+    public byte[] writeCollectionModel() throws IOException {
+        return write(customers);
+    }
+
+    @Benchmark
+    public Object readDto() throws IOException {
+        return converter.read(CustomerDto.class, new MockHttpInputMessage(dto));
+    }
+
+    private byte[] write(Object model) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(model, null, output);
+        return output.getBodyAsBytes();
+    }
+}
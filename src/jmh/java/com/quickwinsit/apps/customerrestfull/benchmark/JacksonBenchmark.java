@@ -0,0 +1,105 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// HAL serialization as the MVC converter performs it, plus reading a DTO (the dd-MM-yyyy LocalDate codec)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JacksonBenchmark {
+
+    @Param({"100"})
+    public int size;
+
+    private ObjectWriter writer;
+    private ObjectReader dtoReader;
+    private EntityModel<Customer> customer;
+    private CollectionModel<EntityModel<Customer>> customers;
+    private byte[] dtoJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jackson2HalModule());
+        mapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        writer = mapper.writer();
+        dtoReader = mapper.readerFor(CustomerDto.class);
+
+        customer = model(1L);
+        List<EntityModel<Customer>> models = new ArrayList<>();
+        for (long id = 1; id <= size; id++) {
+            models.add(model(id));
+        }
+        customers = CollectionModel.of(models, Link.of("http://localhost/customers"));
+        dtoJson = "{\"lastName\":\"Jose\",\"firstName\":\"Joaquim\",\"birthDate\":\"12-11-1746\"}".getBytes();
+    }
+
+    private static EntityModel<Customer> model(long id) {
+        return EntityModel.of(new Customer(id, "Jose", "Joaquim", LocalDate.of(1746, 11, 12)),
+                Link.of("http://localhost/customers/" + id),
+                Link.of("http://localhost/customers", "customers"));
+    }
+
+    @Benchmark
+    public byte[] writeEntityModel() throws IOException {
+        return writer.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public byte[] writeCollectionModel() throws IOException {
+        return writer.writeValueAsBytes(customers);
+    }
+
+    @Benchmark
+    public CustomerDto readDto() throws IOException {
+        return dtoReader.readValue(dtoJson);
+    }
+}
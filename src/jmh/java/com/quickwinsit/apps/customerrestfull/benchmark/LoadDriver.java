@@ -0,0 +1,352 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.quickwinsit.apps.customerrestfull.CustomerRestfullApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Replays a weighted mix of the API endpoints and checks the latency/throughput SLOs:
+//   mvn -Pbenchmark test-compile exec:exec@load-test -Dload.args="--threads=64 --duration=60 --max-p99-ms=50"
+// Without --target it boots the application itself on in-memory H2 ("local" profile) seeded by DataGenerator;
+// with --target=http://host:port it drives a running instance whose ids were seeded from 1 (--customers/--orders).
+// --rate=<req/s> switches from closed-loop to a fixed arrival rate, measuring from the intended start time so a
+// stalled server is not hidden by the driver waiting on it (coordinated omission).
+// Exits with status 1 when an --max-*/--min-* threshold is breached or, given --baseline=<earlier report>,
+// when p99/p999 or throughput regress by more than --max-regression (a fraction, default 0.2).
+public class LoadDriver {
+    private static final String DEFAULT_MIX = "customer-one=40,customer-page=15,order-one=30,order-page=10,customer-create=5";
+    private static final int PAGE_SIZE = 50;
+    private static final byte[] NEW_CUSTOMER =
+            "{\"lastName\":\"Load\",\"firstName\":\"Driver\",\"birthDate\":\"01-01-1990\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final String baseUrl;
+    private final long firstCustomerId;
+    private final long lastCustomerId;
+    private final long firstOrderId;
+    private final long lastOrderId;
+
+    LoadDriver(String baseUrl, long firstCustomerId, long lastCustomerId, long firstOrderId, long lastOrderId) {
+        this.baseUrl = baseUrl;
+        this.firstCustomerId = firstCustomerId;
+        this.lastCustomerId = lastCustomerId;
+        this.firstOrderId = firstOrderId;
+        this.lastOrderId = lastOrderId;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        ObjectNode report = run(arguments);
+        System.out.println(format(report));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File(arguments.get("report", "target/load-report.json")), report);
+
+        List<String> violations = check(report, arguments);
+        for (String violation : violations) {
+            System.err.println("SLO violated: " + violation);
+        }
+        if (!violations.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    // Dotted options (--requests.virtual-threads.enabled=true, --spring.datasource.url=...) configure the booted application
+    static ObjectNode run(Arguments arguments) throws Exception {
+        int threads = (int) arguments.getLong("threads", 32);
+        // HttpURLConnection keeps only 5 idle connections per host by default
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+
+        long customers = arguments.getLong("customers", 100_000);
+        long orders = arguments.getLong("orders", 100_000);
+        ConfigurableApplicationContext context = null;
+        LoadDriver driver;
+        if (arguments.get("target") == null) {
+            context = new SpringApplicationBuilder(CustomerRestfullApplication.class)
+                    .profiles("local")
+                    .properties("server.port=0", "logging.level.root=WARN")
+                    .properties(arguments.properties())
+                    .run();
+            DataGenerator.Seeded seeded = DataGenerator.generate(context.getBean(DataSource.class), customers, orders,
+                    arguments.getLong("seed", 42));
+            driver = new LoadDriver("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort(),
+                    seeded.firstCustomerId, seeded.lastCustomerId, seeded.firstOrderId, seeded.lastOrderId);
+        } else {
+            driver = new LoadDriver(arguments.get("target"), 1, customers, 1, orders);
+        }
+
+        try {
+            List<Operation> mix = driver.mix(arguments.get("mix", DEFAULT_MIX));
+            driver.run(mix, threads, arguments.getLong("warmup", 10), 0);
+            for (Operation operation : mix) {
+                operation.reset();
+            }
+            long duration = arguments.getLong("duration", 30);
+            driver.run(mix, threads, duration, arguments.getDouble("rate", 0));
+            return report(mix, duration);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private List<Operation> mix(String spec) {
+        List<Operation> mix = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.split("=");
+            mix.add(new Operation(parts[0].trim(), Integer.parseInt(parts[1].trim()), call(parts[0].trim())));
+        }
+        return mix;
+    }
+
+    private Call call(String name) {
+        switch (name) {
+            case "customer-one":
+                return random -> get("/customers/" + random.nextLong(firstCustomerId, lastCustomerId + 1));
+            case "customer-page":
+                return random -> get("/customers?after=" + random.nextLong(firstCustomerId - 1, lastCustomerId) + "&limit=" + PAGE_SIZE);
+            case "order-one":
+                return random -> get("/orders/" + random.nextLong(firstOrderId, lastOrderId + 1));
+            case "order-page":
+                return random -> get("/orders?after=" + random.nextLong(firstOrderId - 1, lastOrderId) + "&limit=" + PAGE_SIZE);
+            case "customer-create":
+                return random -> post("/customers", NEW_CUSTOMER);
+            default:
+                throw new IllegalArgumentException("Unknown operation " + name);
+        }
+    }
+
+    private void run(List<Operation> mix, int threads, long seconds, double rate) throws InterruptedException {
+        int totalWeight = 0;
+        for (Operation operation : mix) {
+            totalWeight += operation.weight;
+        }
+        int weights = totalWeight;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long interval = rate > 0 ? (long) (threads * 1_000_000_000L / rate) : 0;
+
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long intended = System.nanoTime() + random.nextLong(Math.max(1, interval));
+                while (System.nanoTime() < deadline) {
+                    long start;
+                    if (interval > 0) {
+                        LockSupport.parkNanos(intended - System.nanoTime());
+                        start = intended;
+                        intended += interval;
+                    } else {
+                        start = System.nanoTime();
+                    }
+                    pick(mix, random.nextInt(weights)).execute(random, start);
+                }
+                done.countDown();
+            }, "load-" + t);
+            worker.setDaemon(true);
+            worker.start();
+        }
+        done.await();
+    }
+
+    private static Operation pick(List<Operation> mix, int roll) {
+        for (Operation operation : mix) {
+            roll -= operation.weight;
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+
+    private int get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestProperty("Accept", "application/hal+json");
+        return drain(connection);
+    }
+
+    private int post(String path, byte[] body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", "application/json");
+        connection.setRequestProperty("Accept", "application/hal+json");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return drain(connection);
+    }
+
+    // The body has to be read to the end for the connection to be reused
+    private static int drain(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            try (InputStream body = in) {
+                byte[] buffer = new byte[8192];
+                while (body.read(buffer) != -1) {
+                    // discard
+                }
+            }
+        }
+        return status;
+    }
+
+    private static ObjectNode report(List<Operation> mix, long seconds) {
+        ObjectMapper mapper = new ObjectMapper();
+        ObjectNode report = mapper.createObjectNode();
+        ObjectNode operations = report.putObject("operations");
+        Histogram overall = new Histogram(3);
+        long errors = 0;
+        for (Operation operation : mix) {
+            Histogram histogram = operation.latencies.getIntervalHistogram();
+            overall.add(histogram);
+            errors += operation.errors.sum();
+            summarize(operations.putObject(operation.name), histogram, operation.errors.sum(), seconds);
+        }
+        summarize(report.putObject("overall"), overall, errors, seconds);
+        return report;
+    }
+
+    private static void summarize(ObjectNode node, Histogram histogram, long errors, long seconds) {
+        node.put("requests", histogram.getTotalCount());
+        node.put("errors", errors);
+        node.put("throughput", (double) histogram.getTotalCount() / seconds);
+        node.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        node.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        node.put("p999Ms", millis(histogram.getValueAtPercentile(99.9)));
+        node.put("maxMs", millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    static String format(ObjectNode report) {
+        StringBuilder table = new StringBuilder(String.format("%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        report.get("operations").fields().forEachRemaining(entry -> row(table, entry.getKey(), entry.getValue()));
+        row(table, "overall", report.get("overall"));
+        return table.toString();
+    }
+
+    private static void row(StringBuilder table, String name, JsonNode node) {
+        table.append(String.format("%-16s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f%n", name,
+                node.get("requests").asLong(), node.get("errors").asLong(), node.get("throughput").asDouble(),
+                node.get("p50Ms").asDouble(), node.get("p99Ms").asDouble(), node.get("p999Ms").asDouble(),
+                node.get("maxMs").asDouble()));
+    }
+
+    private static List<String> check(ObjectNode report, Arguments arguments) throws IOException {
+        List<String> violations = new ArrayList<>();
+        JsonNode overall = report.get("overall");
+        atMost(violations, overall, "p50Ms", arguments.getDouble("max-p50-ms", Double.MAX_VALUE));
+        atMost(violations, overall, "p99Ms", arguments.getDouble("max-p99-ms", Double.MAX_VALUE));
+        atMost(violations, overall, "p999Ms", arguments.getDouble("max-p999-ms", Double.MAX_VALUE));
+        atLeast(violations, overall, "throughput", arguments.getDouble("min-throughput", 0));
+        double errorRate = overall.get("errors").asDouble() / Math.max(1, overall.get("requests").asLong());
+        if (errorRate > arguments.getDouble("max-error-rate", 0.001)) {
+            violations.add(String.format("error rate %.4f > %s", errorRate, arguments.get("max-error-rate", "0.001")));
+        }
+
+        if (arguments.get("baseline") != null) {
+            JsonNode baseline = new ObjectMapper().readTree(new File(arguments.get("baseline"))).get("overall");
+            double allowed = arguments.getDouble("max-regression", 0.2);
+            atMost(violations, overall, "p99Ms", baseline.get("p99Ms").asDouble() * (1 + allowed));
+            atMost(violations, overall, "p999Ms", baseline.get("p999Ms").asDouble() * (1 + allowed));
+            atLeast(violations, overall, "throughput", baseline.get("throughput").asDouble() * (1 - allowed));
+        }
+        return violations;
+    }
+
+    private static void atMost(List<String> violations, JsonNode node, String field, double limit) {
+        if (node.get(field).asDouble() > limit) {
+            violations.add(String.format("%s %.3f > %.3f", field, node.get(field).asDouble(), limit));
+        }
+    }
+
+    private static void atLeast(List<String> violations, JsonNode node, String field, double limit) {
+        if (node.get(field).asDouble() < limit) {
+            violations.add(String.format("%s %.3f < %.3f", field, node.get(field).asDouble(), limit));
+        }
+    }
+
+    interface Call {
+        int execute(ThreadLocalRandom random) throws IOException;
+    }
+
+    static class Operation {
+        final String name;
+        final int weight;
+        final Call call;
+        final Recorder latencies = new Recorder(3);
+        final LongAdder errors = new LongAdder();
+
+        Operation(String name, int weight, Call call) {
+            this.name = name;
+            this.weight = weight;
+            this.call = call;
+        }
+
+        void execute(ThreadLocalRandom random, long start) {
+            try {
+                if (call.execute(random) >= 300) {
+                    errors.increment();
+                }
+            } catch (IOException e) {
+                errors.increment();
+            }
+            latencies.recordValue(System.nanoTime() - start);
+        }
+
+        void reset() {
+            latencies.reset();
+            errors.reset();
+        }
+    }
+}
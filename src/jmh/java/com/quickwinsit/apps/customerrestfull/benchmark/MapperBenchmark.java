@@ -0,0 +1,89 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerDto;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerMapper;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderDto;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderMapper;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// DTO -> entity conversion, ModelMapper (the previous implementation) against the hand-written mappers.
+// Run with -Djmh.args="MapperBenchmark -prof gc" to get gc.alloc.rate.norm (bytes per conversion).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapperBenchmark {
+
+    private ModelMapper modelMapper;
+    private CustomerDto customerDto;
+    private OrderDto orderDto;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+
+        customerDto = new CustomerDto();
+        customerDto.setId(1L);
+        customerDto.setLastName("Jose");
+        customerDto.setFirstName("Joaquim");
+        customerDto.setBirthDate(LocalDate.of(1746, 11, 12));
+
+        orderDto = new OrderDto();
+        orderDto.setId(1L);
+        orderDto.setDescription("Coffee");
+        orderDto.setStatus(Status.IN_PROGRESS);
+    }
+
+    @Benchmark
+    public Customer customerModelMapper() {
+        return modelMapper.map(customerDto, Customer.class);
+    }
+
+    @Benchmark
+    public Customer customerMapper() {
+        return CustomerMapper.toEntity(customerDto);
+    }
+
+    @Benchmark
+    public Order orderModelMapper() {
+        return modelMapper.map(orderDto, Order.class);
+    }
+
+    @Benchmark
+    public Order orderMapper() {
+        return OrderMapper.toEntity(orderDto);
+    }
+}
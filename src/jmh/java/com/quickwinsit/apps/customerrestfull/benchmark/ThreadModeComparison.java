@@ -0,0 +1,74 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+
+// Runs the LoadDriver mix twice at high concurrency, once on Tomcat's platform worker pool and once with
+// requests.virtual-threads.enabled, each against a freshly booted application, and prints them side by side.
+//   mvn -Pbenchmark test-compile exec:exec@thread-modes [-Dload.args="..."]
+// Accepts every LoadDriver option (default --threads=400). In-memory H2 hardly blocks, so the JDBC-bound case
+// shows up with --spring.datasource.url=jdbc:postgresql://... (plus username/password) pointing at a local Postgres.
+public class ThreadModeComparison {
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        if (arguments.get("threads") == null) {
+            arguments = arguments.with("threads", "400");
+        }
+
+        ObjectNode comparison = new ObjectMapper().createObjectNode();
+        for (String mode : new String[]{"platform", "virtual"}) {
+            Arguments run = arguments.with("requests.virtual-threads.enabled", String.valueOf(mode.equals("virtual")));
+            if (arguments.get("spring.datasource.url") == null) {
+                run = run.with("spring.datasource.url", "jdbc:h2:mem:" + mode + ";DB_CLOSE_DELAY=-1");
+            }
+            ObjectNode report = LoadDriver.run(run);
+            System.out.println(mode + " threads:");
+            System.out.println(LoadDriver.format(report));
+            comparison.set(mode, report);
+        }
+
+        JsonNode platform = comparison.get("platform").get("overall");
+        JsonNode virtual = comparison.get("virtual").get("overall");
+        System.out.printf("%-10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "p999 ms", "errors");
+        for (String mode : new String[]{"platform", "virtual"}) {
+            JsonNode overall = comparison.get(mode).get("overall");
+            System.out.printf("%-10s %10.1f %10.3f %10.3f %10.3f %8d%n", mode, overall.get("throughput").asDouble(),
+                    overall.get("p50Ms").asDouble(), overall.get("p99Ms").asDouble(), overall.get("p999Ms").asDouble(),
+                    overall.get("errors").asLong());
+        }
+        System.out.printf("virtual/platform throughput: %.2fx%n",
+                virtual.get("throughput").asDouble() / platform.get("throughput").asDouble());
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(new File(arguments.get("report", "target/thread-mode-comparison.json")), comparison);
+    }
+}
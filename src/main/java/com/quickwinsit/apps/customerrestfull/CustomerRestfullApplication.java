@@ -24,27 +24,19 @@
 
 package com.quickwinsit.apps.customerrestfull;
 
-import com.quickwinsit.apps.customerrestfull.configuration.DatabaseConfig;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class CustomerRestfullApplication {
 
-    static Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
+    static Logger logger = LoggerFactory.getLogger(CustomerRestfullApplication.class);
 
     public static void main(String[] args) {
         logger.info("Starting application...");
         SpringApplication.run(CustomerRestfullApplication.class, args);
     }
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
 }
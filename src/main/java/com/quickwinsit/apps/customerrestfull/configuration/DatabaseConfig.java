@@ -1,19 +1,25 @@
 package com.quickwinsit.apps.customerrestfull.configuration;
 
 import com.quickwinsit.apps.customerrestfull.exception.GetConfigCatKeyException;
+import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import com.configcat.*;
 import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
 
+// The "local" profile runs on the in-memory H2 from application-local.properties instead
 @Configuration
+@Profile("!local")
 public class DatabaseConfig {
 
     Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
@@ -21,7 +27,12 @@ public class DatabaseConfig {
     private String POSTGRES_URL;
     private String POSTGRES_USER;
     private String POSTGRES_PASSWD;
+    private Integer POSTGRES_POOL_SIZE;
+    private Integer POSTGRES_PREPARE_THRESHOLD;
+    private Integer POSTGRES_STATEMENT_CACHE_QUERIES;
+    private Integer POSTGRES_STATEMENT_CACHE_MIB;
 
+    private final Environment environment;
 
     private String getConfigCatKey() throws GetConfigCatKeyException {
         logger.info("Getting ConfigCat Key");
@@ -40,6 +51,7 @@ public class DatabaseConfig {
     @Autowired
     public DatabaseConfig(Environment ev) {
         logger.info("Getting database configuration");
+        this.environment = ev;
         try
         {
             String key = getConfigCatKey();
@@ -51,6 +63,15 @@ public class DatabaseConfig {
             POSTGRES_URL = client.getValue(String.class, "postgres_url", "Default");
             POSTGRES_USER = client.getValue(String.class, "postgres_user", "Default");
             POSTGRES_PASSWD = client.getValue(String.class, "postgres_password", "Default");
+            // Pool and statement cache settings fall back to the properties when ConfigCat has no value
+            POSTGRES_POOL_SIZE = client.getValue(Integer.class, "postgres_pool_size",
+                    ev.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+            POSTGRES_PREPARE_THRESHOLD = client.getValue(Integer.class, "postgres_prepare_threshold",
+                    ev.getProperty("database.postgres.prepare-threshold", Integer.class, 5));
+            POSTGRES_STATEMENT_CACHE_QUERIES = client.getValue(Integer.class, "postgres_statement_cache_queries",
+                    ev.getProperty("database.postgres.prepared-statement-cache-queries", Integer.class, 256));
+            POSTGRES_STATEMENT_CACHE_MIB = client.getValue(Integer.class, "postgres_statement_cache_mib",
+                    ev.getProperty("database.postgres.prepared-statement-cache-size-mib", Integer.class, 5));
         } // <-- This is the actual SDK Key for your 'Production' environment.
         catch (GetConfigCatKeyException ge) {
             throw new RuntimeException(ge);
@@ -60,11 +81,24 @@ public class DatabaseConfig {
     @Bean
     public DataSource getDataSource() {
         logger.info("Creating datasource for application");
-        DataSourceBuilder<?> dataSourceBuilder = DataSourceBuilder.create();
+        DataSourceBuilder<HikariDataSource> dataSourceBuilder = DataSourceBuilder.create().type(HikariDataSource.class);
         dataSourceBuilder.url(this.POSTGRES_URL);
         dataSourceBuilder.username(this.POSTGRES_USER);
         dataSourceBuilder.password(this.POSTGRES_PASSWD);
 
-        return dataSourceBuilder.build();
+        HikariDataSource dataSource = dataSourceBuilder.build();
+        // Everything under spring.datasource.hikari (timeouts, leak detection, the configmap's maxLifeTime), the way
+        // Boot applies it to the pool it creates when there is no DatabaseConfig
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setMaximumPoolSize(this.POSTGRES_POOL_SIZE);
+        if (this.POSTGRES_URL.startsWith("jdbc:postgresql:")) {
+            // pgjdbc turns a statement into a named server-side prepared statement from its prepareThreshold-th run on
+            // a connection, and keeps up to this many of them (and this much memory) per connection; other drivers
+            // would reject or ignore these properties
+            dataSource.addDataSourceProperty("prepareThreshold", this.POSTGRES_PREPARE_THRESHOLD);
+            dataSource.addDataSourceProperty("preparedStatementCacheQueries", this.POSTGRES_STATEMENT_CACHE_QUERIES);
+            dataSource.addDataSourceProperty("preparedStatementCacheSizeMiB", this.POSTGRES_STATEMENT_CACHE_MIB);
+        }
+        return dataSource;
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.StringJoiner;
+
+import static io.r2dbc.spi.ConnectionFactoryOptions.PASSWORD;
+import static io.r2dbc.spi.ConnectionFactoryOptions.USER;
+
+// The reactive stack reads the same database as the JDBC pool (from ConfigCat or spring.datasource.*)
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    // Not a bean of its own: a ConnectionFactory bean makes Boot back off from creating the JDBC DataSource
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient databaseClient(DataSource dataSource) throws SQLException {
+        HikariDataSource jdbc = dataSource.unwrap(HikariDataSource.class);
+        String url = jdbc.getJdbcUrl();
+        if (!url.startsWith("jdbc:postgresql:")) {
+            throw new IllegalStateException("The reactive profile needs Postgres, the datasource points at " + url);
+        }
+
+        // pgjdbc also takes the credentials as ?user=&password=, which R2DBC URLs must not declare
+        String user = jdbc.getUsername();
+        String password = jdbc.getPassword();
+        String r2dbcUrl = "r2dbc:" + url.substring("jdbc:".length());
+        int query = r2dbcUrl.indexOf('?');
+        if (query >= 0) {
+            StringJoiner parameters = new StringJoiner("&");
+            for (String parameter : r2dbcUrl.substring(query + 1).split("&")) {
+                if (parameter.startsWith("user=")) {
+                    user = user == null ? parameter.substring("user=".length()) : user;
+                } else if (parameter.startsWith("password=")) {
+                    password = password == null ? parameter.substring("password=".length()) : password;
+                } else if (!parameter.isEmpty()) {
+                    parameters.add(parameter);
+                }
+            }
+            r2dbcUrl = r2dbcUrl.substring(0, query) + (parameters.length() == 0 ? "" : "?" + parameters);
+        }
+
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.builder()
+                .from(ConnectionFactoryOptions.parse(r2dbcUrl));
+        if (user != null) {
+            options.option(USER, user);
+        }
+        if (password != null) {
+            options.option(PASSWORD, password);
+        }
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options.build()))
+                .maxSize(jdbc.getMaximumPoolSize())
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.configuration;
+
+import com.quickwinsit.apps.customerrestfull.controller.StatementCountInterceptor;
+import com.quickwinsit.apps.customerrestfull.controller.StatementsEndpoint;
+import com.quickwinsit.apps.customerrestfull.model.StatementStatistics;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.handler.MappedInterceptor;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Every DataSource is handed out behind a proxy that reports each statement it runs to StatementStatistics
+@Configuration
+public class StatementStatisticsConfig {
+
+    // Static, so that post-processing DataSources does not create this configuration early
+    @Bean
+    public static BeanPostProcessor statementCountingDataSource(ObjectProvider<StatementStatistics> statistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(new StatementListener(statistics))
+                        .build();
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappedInterceptor statementCountInterceptor(StatementStatistics statistics) {
+        return new MappedInterceptor(null, new StatementCountInterceptor(statistics));
+    }
+
+    @Bean
+    public StatementsEndpoint statementsEndpoint(StatementStatistics statistics, EntityManagerFactory entityManagerFactory) {
+        return new StatementsEndpoint(statistics, entityManagerFactory);
+    }
+
+    private static final class StatementListener implements QueryExecutionListener {
+        private final ObjectProvider<StatementStatistics> provider;
+        // Looked up on first use: the DataSource exists before the rest of the context does
+        private volatile StatementStatistics statistics;
+
+        private StatementListener(ObjectProvider<StatementStatistics> p) {
+            this.provider = p;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (statistics == null) {
+                statistics = provider.getIfAvailable();
+                if (statistics == null) {
+                    return;
+                }
+            }
+            List<String> sql = new ArrayList<>(queryInfoList.size());
+            for (QueryInfo query : queryInfoList) {
+                sql.add(query.getQuery());
+            }
+            statistics.executed(sql, execInfo.getElapsedTime());
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// One JSON line per request on the "access" logger. Request threads only put an entry on a bounded queue and
+// never wait for it: when the queue is full the entry is dropped and counted as access.log.dropped. A single
+// background thread formats the entries and hands them to the logger, so logging I/O stays off the requests.
+public class AccessLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger("access");
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<Entry> queue;
+    private final Counter dropped;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Thread writer = new Thread(this::drain, "access-log");
+
+    public AccessLog(int capacity, MeterRegistry registry) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.dropped = Counter.builder("access.log.dropped")
+                .description("Access log entries dropped because the queue was full")
+                .register(registry);
+        Gauge.builder("access.log.queued", queue, BlockingQueue::size)
+                .description("Access log entries waiting to be written")
+                .register(registry);
+        writer.setDaemon(true);
+    }
+
+    public void start() {
+        writer.start();
+    }
+
+    public boolean offer(Entry entry) {
+        if (queue.offer(entry)) {
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    public long dropped() {
+        return (long) dropped.count();
+    }
+
+    // Whatever is queued when the application stops is still written
+    @Override
+    public void close() throws InterruptedException {
+        writer.interrupt();
+        writer.join(1000);
+        List<Entry> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(this::write);
+    }
+
+    private void drain() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ie) {
+                return;
+            }
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            batch.forEach(this::write);
+            batch.clear();
+        }
+    }
+
+    private void write(Entry entry) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        StringWriter line = new StringWriter(160);
+        try (JsonGenerator json = jsonFactory.createGenerator(line)) {
+            json.writeStartObject();
+            json.writeStringField("time", Instant.ofEpochMilli(entry.time).toString());
+            json.writeStringField("method", entry.method);
+            json.writeStringField("route", entry.route);
+            json.writeStringField("path", entry.path);
+            json.writeNumberField("status", entry.status);
+            json.writeNumberField("micros", entry.micros);
+            json.writeNumberField("sampleRate", entry.sampleRate);
+            json.writeEndObject();
+        } catch (IOException ioe) {
+            // Not thrown when writing to a StringWriter
+            throw new IllegalStateException(ioe);
+        }
+        logger.info(line.toString());
+    }
+
+    // The route is the handler's path pattern, or null when the request never reached a handler
+    public static final class Entry {
+        private final long time;
+        private final String method;
+        private final String route;
+        private final String path;
+        private final int status;
+        private final long micros;
+        private final double sampleRate;
+
+        public Entry(long time, String method, String route, String path, int status, long micros, double sampleRate) {
+            this.time = time;
+            this.method = method;
+            this.route = route;
+            this.path = path;
+            this.status = status;
+            this.micros = micros;
+            this.sampleRate = sampleRate;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Strong entity tags derived from the @Version column: "<version>" for the JSON representations, and
+// "<version>-<format>" for the binary ones (MessageConvertersConfig), so no two representations of a resource share
+// a tag. The format is the one the Accept header selects, picked the way content negotiation picks a converter.
+public final class ETags {
+    public static final String ANY = "*";
+
+    private static final Map<MediaType, String> BINARY_FORMATS = new LinkedHashMap<>();
+
+    static {
+        BINARY_FORMATS.put(MediaType.APPLICATION_CBOR, "cbor");
+        BINARY_FORMATS.put(new MediaType("application", "x-jackson-smile"), "smile");
+        BINARY_FORMATS.put(ProtobufMessageConverter.APPLICATION_PROTOBUF, "protobuf");
+    }
+
+    private ETags() {
+    }
+
+    // The JSON representation's tag
+    public static String of(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    public static String of(Long version, String accept) {
+        String format = format(accept);
+        return version == null || format == null ? of(version) : "\"" + version + "-" + format + "\"";
+    }
+
+    public static ResponseEntity.BodyBuilder tagged(ResponseEntity.BodyBuilder response, Long version) {
+        return version == null ? response : response.eTag(of(version));
+    }
+
+    public static ResponseEntity.BodyBuilder tagged(ResponseEntity.BodyBuilder response, Long version, String accept) {
+        return version == null ? response : response.eTag(of(version, accept)).varyBy(HttpHeaders.ACCEPT);
+    }
+
+    // WebRequest.checkNotModified with the tag of the representation the request asks for. The 304 carries Vary too.
+    public static boolean notModified(WebRequest request, Long version) {
+        if (version == null) {
+            return false;
+        }
+        if (request instanceof NativeWebRequest) {
+            HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+        }
+        return request.checkNotModified(of(version, request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    // The version an If-Match header asks for, or null when it is not a single strong tag this service issued.
+    // Every representation's tag names the same version.
+    public static Long versionOf(String ifMatch) {
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return null;
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int format = value.indexOf('-');
+        if (format > 0 && BINARY_FORMATS.containsValue(value.substring(format + 1))) {
+            value = value.substring(0, format);
+        }
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException nfe) {
+            return null;
+        }
+    }
+
+    // The first acceptable type, by quality and specificity, that some converter produces: a binary format, or null
+    // for JSON, which also wins anything a wildcard leaves open
+    private static String format(String accept) {
+        if (accept == null) {
+            return null;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException imte) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(acceptable);
+        for (MediaType type : acceptable) {
+            if (type.getQualityValue() == 0) {
+                continue;
+            }
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON) || type.isCompatibleWith(MediaTypes.HAL_JSON)) {
+                return null;
+            }
+            for (Map.Entry<MediaType, String> binary : BINARY_FORMATS.entrySet()) {
+                if (type.isCompatibleWith(binary.getKey())) {
+                    return binary.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.LinkRelationProvider;
+import org.springframework.hateoas.server.core.AnnotationLinkRelationProvider;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+import org.springframework.hateoas.server.core.DelegatingLinkRelationProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+// HAL for the reactive stack, byte for byte what the servlet stack's HAL converter renders.
+// Collections are written element by element as rows arrive instead of being collected first.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class HalStreamWriter {
+    // Rows requested from the database ahead of what has been written to the client
+    private static final int PREFETCH = 256;
+
+    private final ObjectWriter writer;
+    private final LinkRelationProvider relations;
+
+    @Autowired
+    public HalStreamWriter(ObjectMapper o) {
+        this.relations = new DelegatingLinkRelationProvider(new AnnotationLinkRelationProvider(), new DefaultLinkRelationProvider());
+        ObjectMapper halMapper = o.copy().registerModule(new Jackson2HalModule());
+        halMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                relations, CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        this.writer = halMapper.writer();
+    }
+
+    public static String baseUri(ServerWebExchange exchange) {
+        return UriComponentsBuilder.fromUri(exchange.getRequest().getURI())
+                .replacePath(exchange.getRequest().getPath().contextPath().value())
+                .replaceQuery(null)
+                .fragment(null)
+                .build()
+                .toUriString();
+    }
+
+    public byte[] write(RepresentationModel<?> model) {
+        try {
+            return writer.writeValueAsBytes(model);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // {"_embedded":{"<rel>":[ element, element, ... ]},"_links":{...}}, or just the links when there are no rows
+    public <T> Flux<DataBuffer> collection(Flux<T> rows, Class<T> type, Function<T, ? extends RepresentationModel<?>> toModel,
+                                           Link self, DataBufferFactory buffers) {
+        byte[] links = write(CollectionModel.empty(self));
+        byte[] open = ("{\"_embedded\":{\"" + relations.getCollectionResourceRelFor(type).value() + "\":[")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] close = new byte[links.length + 2];
+        close[0] = ']';
+        close[1] = '}';
+        close[2] = ',';
+        System.arraycopy(links, 1, close, 3, links.length - 1);
+
+        return rows.limitRate(PREFETCH).switchOnFirst((first, all) -> {
+            if (!first.hasValue()) {
+                return all.thenMany(Flux.just(buffers.wrap(links)));
+            }
+            Flux<DataBuffer> elements = all.index()
+                    .map(indexed -> element(buffers, indexed.getT1() > 0, toModel.apply(indexed.getT2())));
+            return Flux.concat(Flux.just(buffers.wrap(open)), elements, Flux.just(buffers.wrap(close)));
+        });
+    }
+
+    private DataBuffer element(DataBufferFactory buffers, boolean separator, RepresentationModel<?> model) {
+        DataBuffer buffer = buffers.allocateBuffer();
+        try {
+            if (separator) {
+                buffer.write((byte) ',');
+            }
+            writer.writeValue(buffer.asOutputStream(), model);
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+}
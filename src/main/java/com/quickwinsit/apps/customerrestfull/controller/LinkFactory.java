@@ -0,0 +1,137 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+// Builds the same links as linkTo(methodOn(...)) from templates filled per element, without invocation proxies
+@Component
+public class LinkFactory {
+    private static final String TEMPLATES_ATTRIBUTE = LinkFactory.class.getName() + ".TEMPLATES";
+
+    // Resolved once per servlet request: the base URI and everything derived from it
+    public Templates templates() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new Templates("");
+        }
+        Templates templates = (Templates) attributes.getAttribute(TEMPLATES_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (templates == null) {
+            templates = new Templates(ServletUriComponentsBuilder.fromCurrentServletMapping().build().toUriString());
+            attributes.setAttribute(TEMPLATES_ATTRIBUTE, templates, RequestAttributes.SCOPE_REQUEST);
+        }
+        return templates;
+    }
+
+    // For callers without a servlet request, e.g. the reactive stack
+    public Templates templates(String baseUri) {
+        return new Templates(baseUri);
+    }
+
+    // The same link with one more query parameter; value must already be encoded
+    public static Link withQueryParam(Link link, String name, String value) {
+        String href = link.getHref();
+        return link.withHref(href + (href.indexOf('?') < 0 ? "?" : "&") + name + "=" + value);
+    }
+
+    public static class Templates {
+        private final String customerPrefix;
+        private final String orderPrefix;
+
+        // Links are immutable, so every element of a collection shares these instances
+        private final Link customers;
+        private final Link orders;
+
+        Templates(String baseUri) {
+            this.customerPrefix = baseUri + "/customers/";
+            this.orderPrefix = baseUri + "/orders/";
+            this.customers = Link.of(baseUri + "/customers", "customers");
+            this.orders = Link.of(baseUri + "/orders", "orders");
+        }
+
+        public Link customer(long id) {
+            return Link.of(customerPrefix + id);
+        }
+
+        public Link customers() {
+            return customers;
+        }
+
+        public Link customers(LinkRelation relation) {
+            return customers.withRel(relation);
+        }
+
+        public Link customersPage(long after, int limit, LinkRelation relation) {
+            return Link.of(customers.getHref() + "?after=" + after + "&limit=" + limit, relation);
+        }
+
+        // query is already encoded
+        public Link customersSearch(String query, LinkRelation relation) {
+            return Link.of(customerPrefix + "search" + (query == null || query.isEmpty() ? "" : "?" + query), relation);
+        }
+
+        public Link customerOrders(long id, LinkRelation relation) {
+            return Link.of(customerPrefix + id + "/orders", relation);
+        }
+
+        public Link customer(long id, LinkRelation relation) {
+            return Link.of(customerPrefix + id, relation);
+        }
+
+        // query is already encoded
+        public Link customersSuggest(String query, LinkRelation relation) {
+            return Link.of(customerPrefix + "suggest?" + query, relation);
+        }
+
+        public Link order(long id) {
+            return Link.of(orderPrefix + id);
+        }
+
+        public Link orders() {
+            return orders;
+        }
+
+        public Link orders(LinkRelation relation) {
+            return orders.withRel(relation);
+        }
+
+        public Link ordersPage(long after, int limit, LinkRelation relation) {
+            return Link.of(orders.getHref() + "?after=" + after + "&limit=" + limit, relation);
+        }
+
+        public Link cancel(long id) {
+            return Link.of(orderPrefix + id + "/cancel", "cancel");
+        }
+
+        public Link complete(long id) {
+            return Link.of(orderPrefix + id + "/complete", "complete");
+        }
+    }
+}
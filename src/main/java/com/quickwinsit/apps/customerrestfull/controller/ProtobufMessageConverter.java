@@ -0,0 +1,230 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.MessageLite;
+import com.quickwinsit.apps.customerrestfull.exception.NotAcceptableException;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerDto;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderDto;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import com.quickwinsit.apps.customerrestfull.proto.CustomerMessages;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.Links;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// application/x-protobuf, mapped to and from the CustomerMessages generated from src/main/proto/customers.proto:
+// whole customers and orders, alone or in a collection, and customer or order request bodies. Dates travel as epoch
+// days, so there is no date formatting at all. Sparse or embedded representations have no protobuf message and are
+// not acceptable.
+public class ProtobufMessageConverter extends AbstractHttpMessageConverter<Object> {
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public ProtobufMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return readable(clazz) || writable(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return readable(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return writable(clazz) && canWrite(mediaType);
+    }
+
+    private static boolean readable(Class<?> clazz) {
+        return clazz == CustomerDto.class || clazz == OrderDto.class;
+    }
+
+    // Exact classes: HalModelBuilder's models extend EntityModel but carry _embedded content a message has no room for
+    private static boolean writable(Class<?> clazz) {
+        return clazz == EntityModel.class || clazz == CollectionModel.class;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return clazz == CustomerDto.class
+                    ? customerDto(CustomerMessages.Customer.parseFrom(inputMessage.getBody()))
+                    : orderDto(CustomerMessages.Order.parseFrom(inputMessage.getBody()), inputMessage);
+        } catch (InvalidProtocolBufferException ipbe) {
+            throw new HttpMessageNotReadableException("Not a valid " + clazz.getSimpleName() + " message", ipbe, inputMessage);
+        }
+    }
+
+    // The whole message is built before a byte is written, so unsupported content is rejected with nothing sent
+    @Override
+    protected void writeInternal(Object model, HttpOutputMessage outputMessage) throws IOException {
+        MessageLite message = model instanceof CollectionModel ? list((CollectionModel<?>) model) : message(entity(model));
+        message.writeTo(outputMessage.getBody());
+    }
+
+    // An empty collection is written as a CustomerList; with no items it is the same bytes as an OrderList
+    private static MessageLite list(CollectionModel<?> collection) {
+        List<MessageLite> items = new ArrayList<>(collection.getContent().size());
+        for (Object item : collection) {
+            items.add(message(entity(item)));
+        }
+        if (!items.isEmpty() && items.get(0) instanceof CustomerMessages.Order) {
+            CustomerMessages.OrderList.Builder list = CustomerMessages.OrderList.newBuilder();
+            for (MessageLite item : items) {
+                list.addOrders(item(item, CustomerMessages.Order.class));
+            }
+            return list.addAllLinks(links(collection.getLinks())).build();
+        }
+        CustomerMessages.CustomerList.Builder list = CustomerMessages.CustomerList.newBuilder();
+        for (MessageLite item : items) {
+            list.addCustomers(item(item, CustomerMessages.Customer.class));
+        }
+        return list.addAllLinks(links(collection.getLinks())).build();
+    }
+
+    private static <T extends MessageLite> T item(MessageLite item, Class<T> type) {
+        if (!type.isInstance(item)) {
+            throw new NotAcceptableException("No " + APPLICATION_PROTOBUF + " representation of a collection of mixed content");
+        }
+        return type.cast(item);
+    }
+
+    private static EntityModel<?> entity(Object item) {
+        if (!(item instanceof EntityModel) || item.getClass() != EntityModel.class) {
+            throw notAcceptable(item);
+        }
+        return (EntityModel<?>) item;
+    }
+
+    private static MessageLite message(EntityModel<?> model) {
+        Object content = model.getContent();
+        if (content instanceof Customer) {
+            return customer((Customer) content).addAllLinks(links(model.getLinks())).build();
+        }
+        if (content instanceof Order) {
+            return order((Order) content).addAllLinks(links(model.getLinks())).build();
+        }
+        throw notAcceptable(content);
+    }
+
+    // proto3 strings cannot be null; a missing value goes out as the empty string, which is also left off the wire
+    private static CustomerMessages.Customer.Builder customer(Customer customer) {
+        CustomerMessages.Customer.Builder message = CustomerMessages.Customer.newBuilder()
+                .setId(customer.getId())
+                .setLastName(nullToEmpty(customer.getLastName()))
+                .setFirstName(nullToEmpty(customer.getFirstName()));
+        if (customer.getBirthDate() != null) {
+            message.setBirthDate((int) customer.getBirthDate().toEpochDay());
+        }
+        return message;
+    }
+
+    private static CustomerMessages.Order.Builder order(Order order) {
+        CustomerMessages.Order.Builder message = CustomerMessages.Order.newBuilder()
+                .setDescription(nullToEmpty(order.getDescription()));
+        if (order.getId() != null) {
+            message.setId(order.getId());
+        }
+        if (order.getStatus() != null) {
+            message.setStatus(CustomerMessages.Status.valueOf(order.getStatus().name()));
+        }
+        if (order.getCustomerId() != null) {
+            message.setCustomerId(order.getCustomerId());
+        }
+        return message;
+    }
+
+    private static List<CustomerMessages.Link> links(Links links) {
+        List<CustomerMessages.Link> messages = new ArrayList<>();
+        for (Link link : links) {
+            messages.add(CustomerMessages.Link.newBuilder().setRel(link.getRel().value()).setHref(link.getHref()).build());
+        }
+        return messages;
+    }
+
+    // Links are ignored; an order id that is not there reads as none rather than as 0
+    private static CustomerDto customerDto(CustomerMessages.Customer message) {
+        CustomerDto customer = new CustomerDto();
+        customer.setId(message.getId());
+        customer.setLastName(emptyToNull(message.getLastName()));
+        customer.setFirstName(emptyToNull(message.getFirstName()));
+        if (message.hasBirthDate()) {
+            customer.setBirthDate(LocalDate.ofEpochDay(message.getBirthDate()));
+        }
+        return customer;
+    }
+
+    private static OrderDto orderDto(CustomerMessages.Order message, HttpInputMessage inputMessage) {
+        OrderDto order = new OrderDto();
+        order.setId(message.getId() == 0 ? null : message.getId());
+        order.setDescription(emptyToNull(message.getDescription()));
+        order.setStatus(status(message, inputMessage));
+        if (message.hasCustomerId()) {
+            order.setCustomerId(message.getCustomerId());
+        }
+        return order;
+    }
+
+    private static Status status(CustomerMessages.Order message, HttpInputMessage inputMessage) {
+        switch (message.getStatus()) {
+            case STATUS_UNSPECIFIED:
+                return null;
+            case UNRECOGNIZED:
+                throw new HttpMessageNotReadableException("Unknown order status " + message.getStatusValue(), inputMessage);
+            default:
+                return Status.valueOf(message.getStatus().name());
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+
+    private static NotAcceptableException notAcceptable(Object content) {
+        return new NotAcceptableException("No " + APPLICATION_PROTOBUF + " representation of "
+                + (content == null ? "null" : content.getClass().getSimpleName()));
+    }
+}
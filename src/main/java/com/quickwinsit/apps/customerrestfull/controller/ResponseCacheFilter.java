@@ -0,0 +1,254 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+
+// Keeps the encoded bytes of GET /customers and GET /orders, one entry per query string and Accept header, and
+// answers repeats with them as they are: no query, no assembler, no Jackson. An entry is good for as long as the
+// generation of its resource has not moved since the request that filled it started, and never longer than the
+// configured expiry, so an entry for a query nobody repeats does not sit in the cache forever. Bodies of a kilobyte or more
+// are also kept gzipped for clients that accept it. With ?embed= a response depends on more than one resource,
+// so those are never kept.
+public class ResponseCacheFilter extends OncePerRequestFilter {
+    private static final int MIN_GZIP_SIZE = 1024;
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
+    private final Generations generations;
+    private final Cache<String, CachedResponse> responses;
+    private final int maxEntrySize;
+
+    public ResponseCacheFilter(Generations g, long maxSize, Duration expireAfterWrite) {
+        this.generations = g;
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .<String, CachedResponse>weigher((key, response) -> key.length() + response.size())
+                .build();
+        // Anything bigger would push out a good part of the cache on its own
+        this.maxEntrySize = (int) Math.min(Integer.MAX_VALUE - 8, maxSize / 8);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"GET".equals(request.getMethod()) || request.getParameter("embed") != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        // Read before the request runs: a write that commits meanwhile moves it on and the entry is born stale
+        long generation = generation(path);
+        String key = key(request, path);
+        response.setHeader(HttpHeaders.VARY, VARY);
+
+        CachedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.generation == generation) {
+            // The patterns this filter is mapped to are the routes' own, for whatever is timed or logged by route
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, path);
+            cached.writeTo(response, acceptsGzip(request));
+            return;
+        }
+
+        TeeResponse tee = new TeeResponse(response, maxEntrySize);
+        chain.doFilter(request, tee);
+        byte[] body = tee.copy();
+        if (body != null && tee.getStatus() == HttpServletResponse.SC_OK && !tee.containsHeader(HttpHeaders.CONTENT_ENCODING)) {
+            responses.put(key, new CachedResponse(generation, tee.getContentType(), body));
+        }
+    }
+
+    private long generation(String path) {
+        return path.startsWith("/customers") ? generations.customers() : generations.orders();
+    }
+
+    // Links are absolute, so the host they were built for is part of the key
+    private static String key(HttpServletRequest request, String path) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String query = request.getQueryString();
+        return ServletUriComponentsBuilder.fromContextPath(request).toUriString() + path
+                + (query == null ? "" : "?" + query) + " " + (accept == null ? "" : accept);
+    }
+
+    // "gzip" in Accept-Encoding, unless its quality is zero
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!"gzip".equalsIgnoreCase(parts[0].trim())) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException nfe) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static final class CachedResponse {
+        private final long generation;
+        private final String contentType;
+        private final byte[] body;
+        private final byte[] gzipped;
+
+        private CachedResponse(long generation, String contentType, byte[] body) throws IOException {
+            this.generation = generation;
+            this.contentType = contentType;
+            this.body = body;
+            this.gzipped = body.length < MIN_GZIP_SIZE ? null : gzip(body);
+        }
+
+        private int size() {
+            return body.length + (gzipped == null ? 0 : gzipped.length);
+        }
+
+        private void writeTo(HttpServletResponse response, boolean gzip) throws IOException {
+            byte[] bytes = gzip && gzipped != null ? gzipped : body;
+            response.setStatus(HttpServletResponse.SC_OK);
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            if (bytes == gzipped) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            }
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+
+        private static byte[] gzip(byte[] body) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(body);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    // Passes the body through to the client as it is written, keeping a copy unless it grows past the limit.
+    // A body written as characters is not kept at all.
+    private static final class TeeResponse extends HttpServletResponseWrapper {
+        private final int limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+        private ServletOutputStream outputStream;
+
+        private TeeResponse(HttpServletResponse response, int limit) {
+            super(response);
+            this.limit = limit;
+        }
+
+        private byte[] copy() {
+            return copy == null ? null : copy.toByteArray();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            copy = null;
+            return super.getWriter();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream target = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        target.write(b);
+                        if (keep(1)) {
+                            copy.write(b);
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        target.write(b, off, len);
+                        if (keep(len)) {
+                            copy.write(b, off, len);
+                        }
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        target.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        target.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        private boolean keep(int length) {
+            if (copy != null && copy.size() + length > limit) {
+                copy = null;
+            }
+            return copy != null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.quickwinsit.apps.customerrestfull.model.StatementStatistics;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// GET /actuator/statements: the statements that cost the most time, the routes that run the most statements
+// per request, and Hibernate's own counters. DELETE starts them all over.
+@Endpoint(id = "statements")
+public class StatementsEndpoint {
+    private static final int TOP = 20;
+
+    private final StatementStatistics statistics;
+    private final Statistics hibernate;
+
+    public StatementsEndpoint(StatementStatistics s, EntityManagerFactory e) {
+        this.statistics = s;
+        this.hibernate = e.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> statements() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("slowMillis", statistics.getSlowMillis());
+        body.put("statements", statistics.topStatements(TOP));
+        body.put("routes", statistics.topRoutes(TOP));
+        body.put("hibernate", hibernate());
+        return body;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        statistics.reset();
+        hibernate.clear();
+    }
+
+    // Fetches are the lazy loads: entities and collections read one at a time after the query that found them
+    private Map<String, Object> hibernate() {
+        Map<String, Object> counters = new LinkedHashMap<>();
+        counters.put("enabled", hibernate.isStatisticsEnabled());
+        if (hibernate.isStatisticsEnabled()) {
+            counters.put("prepareStatementCount", hibernate.getPrepareStatementCount());
+            counters.put("queryExecutionCount", hibernate.getQueryExecutionCount());
+            counters.put("queryExecutionMaxTime", hibernate.getQueryExecutionMaxTime());
+            counters.put("queryExecutionMaxTimeQueryString", hibernate.getQueryExecutionMaxTimeQueryString());
+            counters.put("entityLoadCount", hibernate.getEntityLoadCount());
+            counters.put("entityFetchCount", hibernate.getEntityFetchCount());
+            counters.put("collectionFetchCount", hibernate.getCollectionFetchCount());
+        }
+        return counters;
+    }
+}
@@ -24,100 +24,274 @@
 
 package com.quickwinsit.apps.customerrestfull.controller.customer;
 
-import com.quickwinsit.apps.customerrestfull.configuration.DatabaseConfig;
+import com.quickwinsit.apps.customerrestfull.controller.ETags;
+import com.quickwinsit.apps.customerrestfull.exception.BadRequestException;
+import com.quickwinsit.apps.customerrestfull.exception.CustomerHasOrdersException;
 import com.quickwinsit.apps.customerrestfull.exception.CustomerNotFoundException;
+import com.quickwinsit.apps.customerrestfull.exception.PreconditionFailedException;
+import com.quickwinsit.apps.customerrestfull.model.BulkInserter;
+import com.quickwinsit.apps.customerrestfull.model.BulkResult;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import com.quickwinsit.apps.customerrestfull.model.NdjsonExporter;
 import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
 import com.quickwinsit.apps.customerrestfull.model.customer.CustomerDto;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerMapper;
 import com.quickwinsit.apps.customerrestfull.model.customer.CustomerModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerNameIndex;
 import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
-import org.modelmapper.ModelMapper;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerSearch;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.Set;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CustomerController {
-    Logger logger = LoggerFactory.getLogger(DatabaseConfig.class);
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final String SUGGESTIONS_TRUNCATED = "Suggestions-Truncated";
+    private static final String EMBED_ORDERS = "orders";
+    private static final Set<String> SEARCH_SORT_PROPERTIES = new HashSet<>(Arrays.asList("id", "lastName", "firstName", "birthDate"));
 
     private final CustomerRepository repository;
     private final CustomerModelAssembler assembler;
-
-    private final ModelMapper modelMapper;
+    private final NdjsonExporter exporter;
+    private final BulkInserter bulkInserter;
+    private final CustomerNameIndex nameIndex;
+    private final OrderRepository orderRepository;
+    private final Generations generations;
 
     @Autowired
-    public CustomerController(CustomerRepository r, CustomerModelAssembler c, ModelMapper m) {
+    public CustomerController(CustomerRepository r, CustomerModelAssembler c, NdjsonExporter e, BulkInserter b,
+                              CustomerNameIndex n, OrderRepository o, Generations g) {
         this.repository = r;
         this.assembler = c;
-        this.modelMapper = m;
+        this.exporter = e;
+        this.bulkInserter = b;
+        this.nameIndex = n;
+        this.orderRepository = o;
+        this.generations = g;
     }
 
     @GetMapping("/customers")
-    public CollectionModel<EntityModel<Customer>> allCustomers() {
-        logger.info("Getting all customers from database");
-        List<EntityModel<Customer>> customers = repository.findAll().stream()
-                .map(assembler::toModel)
-                .collect(Collectors.toList());
-        return CollectionModel.of(customers,
-                linkTo(methodOn(CustomerController.class).allCustomers()).withSelfRel());
+    public RepresentationModel<?> allCustomers(@RequestParam(required = false) String embed,
+                                               @RequestParam(required = false) String fields) {
+        FieldSet<Customer> selected = selectedFields(fields, embed);
+        if (selected != null) {
+            return assembler.toSparseCollectionModel(repository.findAll(selected), selected);
+        }
+        return embedded(assembler.toCollectionModel(repository.findAll()), embed);
+    }
+
+    @GetMapping(value = "/customers", params = "limit")
+    public RepresentationModel<?> customersPage(@RequestParam(defaultValue = "0") long after,
+                                                @RequestParam int limit,
+                                                @RequestParam(required = false) String embed,
+                                                @RequestParam(required = false) String fields) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        FieldSet<Customer> selected = selectedFields(fields, embed);
+        if (selected != null) {
+            return assembler.toSparsePage(repository.findByIdGreaterThan(after, pageSize, selected), after, pageSize, selected);
+        }
+        List<Customer> customers = repository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, pageSize));
+        return embedded(assembler.toPage(customers, after, pageSize), embed);
+    }
+
+    @GetMapping(value = "/customers", params = {"after", "!limit"})
+    public RepresentationModel<?> customersAfter(@RequestParam long after,
+                                                 @RequestParam(required = false) String embed,
+                                                 @RequestParam(required = false) String fields) {
+        return customersPage(after, DEFAULT_PAGE_SIZE, embed, fields);
+    }
+
+    @GetMapping("/customers/search")
+    public RepresentationModel<?> searchCustomers(@RequestParam(required = false) String lastName,
+                                                  @RequestParam(required = false) String firstName,
+                                                  @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate birthDateFrom,
+                                                  @RequestParam(required = false) @DateTimeFormat(pattern = "dd-MM-yyyy") LocalDate birthDateTo,
+                                                  @RequestParam(required = false) String embed,
+                                                  @RequestParam(required = false) String fields,
+                                                  @PageableDefault(size = 20) Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SEARCH_SORT_PROPERTIES.contains(order.getProperty())) {
+                throw new BadRequestException("Cannot sort customers by " + order.getProperty());
+            }
+        }
+        Pageable page = PageRequest.of(pageable.getPageNumber(), Math.min(pageable.getPageSize(), MAX_PAGE_SIZE), pageable.getSort());
+        CustomerSearch search = new CustomerSearch(lastName, firstName, birthDateFrom, birthDateTo);
+        FieldSet<Customer> selected = selectedFields(fields, embed);
+        if (selected != null) {
+            return assembler.toSparseSearchPage(repository.search(search.toSpecification(), page, selected), search, selected);
+        }
+        return embedded(assembler.toSearchPage(repository.search(search.toSpecification(), page), search), embed);
+    }
+
+    @GetMapping("/customers/suggest")
+    public ResponseEntity<CollectionModel<EntityModel<Customer>>> suggestCustomers(@RequestParam String q,
+                                                                                   @RequestParam(defaultValue = "10") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nameIndex.isFull()) {
+            response.header(SUGGESTIONS_TRUNCATED, "true");
+        }
+        return response.body(assembler.toSuggestions(nameIndex.suggest(q, size), q, size));
+    }
+
+    @GetMapping(value = "/customers/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportCustomers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exporter.export(repository::streamAll, response.getOutputStream());
     }
 
     @PostMapping("/customers")
     public ResponseEntity<EntityModel<Customer>> newCustomer(@RequestBody CustomerDto newCustomer) {
-        logger.info("Creating a new customer on database");
-        EntityModel<Customer> entityModel = assembler.toModel(repository.save(convertToEntity(newCustomer)));
+        Customer customer = CustomerMapper.toEntity(newCustomer);
+        customer.setId(0);
+        Customer savedCustomer = repository.save(customer);
+        nameIndex.put(savedCustomer);
+        generations.customersChanged();
+        EntityModel<Customer> entityModel = assembler.toModel(savedCustomer);
         return ResponseEntity
                 .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
                 .body(entityModel);
     }
 
+    @PostMapping(value = "/customers/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public BulkResult bulkCustomers(InputStream body) throws IOException {
+        return bulkInserter.insert(body, CustomerDto.class, customerDto -> {
+            Customer customer = CustomerMapper.toEntity(customerDto);
+            customer.setId(0);
+            return customer;
+        }, repository, customer -> {
+            nameIndex.put(customer);
+            generations.customersChanged();
+        });
+    }
+
     @GetMapping("/customers/{id}")
-    public EntityModel<Customer> getSingleCustomer(@PathVariable Long id) {
-        logger.info("Getting a single customer from database");
+    public ResponseEntity<RepresentationModel<?>> getSingleCustomer(@PathVariable Long id,
+                                                                    @RequestParam(required = false) String embed,
+                                                                    @RequestParam(required = false) String fields,
+                                                                    WebRequest request) {
+        FieldSet<Customer> selected = selectedFields(fields, embed);
         Customer customer = repository.findById(id)
                 .orElseThrow(() -> new CustomerNotFoundException(id));
-        return assembler.toModel(customer);
+        // The customer's version says nothing about its orders, so with them embedded there is no ETag
+        if (embedsOrders(embed)) {
+            return ResponseEntity.ok(assembler.withOrders(assembler.toModel(customer), orderRepository.findByCustomerIdOrderByIdAsc(id)));
+        }
+        if (ETags.notModified(request, customer.getVersion())) {
+            return null;
+        }
+        return ETags.tagged(ResponseEntity.ok(), customer.getVersion(), request.getHeader(HttpHeaders.ACCEPT))
+                .body(selected == null ? assembler.toModel(customer) : assembler.toSparseModel(selected.of(customer)));
     }
 
     @PutMapping("/customers/{id}")
-    public ResponseEntity<EntityModel<Customer>> replaceCustomers(@RequestBody CustomerDto newCustomerDto, @PathVariable Long id) {
-        logger.info("Updating a single customer from database");
-        Customer newCustomer = convertToEntity(newCustomerDto);
-        Customer updatedCustomer = repository.findById(id)
-                .map(
-                        customer -> {
-                            customer.setFirstName(newCustomer.getFirstName());
-                            customer.setLastName(newCustomer.getLastName());
-                            customer.setBirthDate(newCustomer.getBirthDate());
-                            return repository.save(customer);
-                        }).orElseGet(() -> {
-                    newCustomer.setId(id);
-                    return repository.save(newCustomer);
-                });
+    public ResponseEntity<EntityModel<Customer>> replaceCustomers(@RequestBody CustomerDto newCustomerDto, @PathVariable Long id,
+                                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Customer newCustomer = CustomerMapper.toEntity(newCustomerDto);
+        Customer updatedCustomer;
+        if (ifMatch == null) {
+            updatedCustomer = repository.upsert(id, newCustomer);
+        } else {
+            boolean any = ETags.ANY.equals(ifMatch.trim());
+            Long expectedVersion = any ? null : ETags.versionOf(ifMatch);
+            if (!any && expectedVersion == null) {
+                throw new PreconditionFailedException("Customer", id);
+            }
+            updatedCustomer = repository.replace(id, expectedVersion, newCustomer)
+                    .orElseThrow(() -> new PreconditionFailedException("Customer", id));
+        }
+        nameIndex.put(updatedCustomer);
+        generations.customersChanged();
         EntityModel<Customer> entityModel = assembler.toModel(updatedCustomer);
-        return ResponseEntity //
-                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
-                .body(entityModel);
+        // Only a row inserted by this request is at version 0
+        ResponseEntity.BodyBuilder response = updatedCustomer.getVersion() == 0L
+                ? ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                : ResponseEntity.ok();
+        return ETags.tagged(response, updatedCustomer.getVersion(), accept).body(entityModel);
     }
 
     @DeleteMapping("/customers/{id}")
     public ResponseEntity<CustomerDto> deleteCustomer(@PathVariable Long id) {
-        logger.info("Deleting a customer from database");
-        repository.deleteById(id);
+        try {
+            repository.deleteById(id);
+        } catch (DataIntegrityViolationException dive) {
+            throw new CustomerHasOrdersException(id);
+        }
+        nameIndex.remove(id);
+        generations.customersChanged();
         return ResponseEntity.noContent().build();
     }
 
-    private Customer convertToEntity(CustomerDto customerDTO) {
-        return modelMapper.map(customerDTO, Customer.class);
+    private RepresentationModel<?> embedded(CollectionModel<EntityModel<Customer>> customers, String embed) {
+        if (!embedsOrders(embed)) {
+            return customers;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (EntityModel<Customer> customer : customers) {
+            ids.add(customer.getContent().getId());
+        }
+        return assembler.withOrders(customers, orderRepository.findByCustomerIds(ids));
+    }
+
+    private static FieldSet<Customer> selectedFields(String fields, String embed) {
+        if (fields == null) {
+            return null;
+        }
+        if (embed != null) {
+            throw new BadRequestException("Cannot embed " + embed + " in customers narrowed by fields");
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!CustomerRepository.FIELDS.has(field)) {
+                throw new BadRequestException("Cannot select " + field + " from customers");
+            }
+            names.add(field);
+        }
+        return CustomerRepository.FIELDS.select(names);
+    }
+
+    private static boolean embedsOrders(String embed) {
+        if (embed == null) {
+            return false;
+        }
+        if (!EMBED_ORDERS.equals(embed)) {
+            throw new BadRequestException("Cannot embed " + embed + " in customers");
+        }
+        return true;
     }
 }
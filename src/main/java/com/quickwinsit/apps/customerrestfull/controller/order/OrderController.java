@@ -24,131 +24,252 @@
 
 package com.quickwinsit.apps.customerrestfull.controller.order;
 
+import com.quickwinsit.apps.customerrestfull.controller.ETags;
+import com.quickwinsit.apps.customerrestfull.exception.BadRequestException;
+import com.quickwinsit.apps.customerrestfull.exception.CustomerNotFoundException;
 import com.quickwinsit.apps.customerrestfull.exception.OrderNotFoundException;
+import com.quickwinsit.apps.customerrestfull.exception.PreconditionFailedException;
+import com.quickwinsit.apps.customerrestfull.model.BulkInserter;
+import com.quickwinsit.apps.customerrestfull.model.BulkResult;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import com.quickwinsit.apps.customerrestfull.model.NdjsonExporter;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
 import com.quickwinsit.apps.customerrestfull.model.order.*;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.IanaLinkRelations;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.RepresentationModel;
 import org.springframework.hateoas.mediatype.problem.Problem;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class OrderController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int DEFAULT_PAGE_SIZE = 100;
 
     private final OrderRepository orderRepository;
     private final OrderModelAssembler orderModelAssembler;
-
-    private final ModelMapper modelMapper;
+    private final NdjsonExporter exporter;
+    private final BulkInserter bulkInserter;
+    private final OrderTransitions orderTransitions;
+    private final CustomerRepository customerRepository;
+    private final OrderStatusCounters counters;
+    private final Generations generations;
 
     @Autowired
-    public OrderController(OrderRepository r, OrderModelAssembler o, ModelMapper m) {
+    public OrderController(OrderRepository r, OrderModelAssembler o, NdjsonExporter e, BulkInserter b, OrderTransitions t,
+                           CustomerRepository c, OrderStatusCounters s, Generations g) {
         this.orderRepository = r;
         this.orderModelAssembler = o;
-        this.modelMapper = m;
+        this.exporter = e;
+        this.bulkInserter = b;
+        this.orderTransitions = t;
+        this.customerRepository = c;
+        this.counters = s;
+        this.generations = g;
     }
 
     @GetMapping("/orders")
-    public CollectionModel<EntityModel<Order>> all() {
-        List<EntityModel<Order>> orders = orderRepository.findAll().stream()
-                .map(orderModelAssembler::toModel)
-                .collect(Collectors.toList());
+    public RepresentationModel<?> all(@RequestParam(required = false) String fields) {
+        FieldSet<Order> selected = selectedFields(fields);
+        if (selected != null) {
+            return orderModelAssembler.toSparseCollectionModel(orderRepository.findAll(selected), selected);
+        }
+        return orderModelAssembler.toCollectionModel(orderRepository.findAll());
+    }
+
+    @GetMapping(value = "/orders", params = "limit")
+    public RepresentationModel<?> page(@RequestParam(defaultValue = "0") long after,
+                                       @RequestParam int limit,
+                                       @RequestParam(required = false) String fields) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        FieldSet<Order> selected = selectedFields(fields);
+        if (selected != null) {
+            return orderModelAssembler.toSparsePage(orderRepository.findByIdGreaterThan(after, pageSize, selected), after, pageSize, selected);
+        }
+        List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.of(0, pageSize));
+        return orderModelAssembler.toPage(orders, after, pageSize);
+    }
+
+    @GetMapping(value = "/orders", params = {"after", "!limit"})
+    public RepresentationModel<?> pageAfter(@RequestParam long after,
+                                            @RequestParam(required = false) String fields) {
+        return page(after, DEFAULT_PAGE_SIZE, fields);
+    }
+
+    @GetMapping("/orders/stats")
+    public Map<Status, Long> stats() {
+        return counters.counts();
+    }
+
+    @GetMapping("/customers/{id}/orders")
+    public CollectionModel<EntityModel<Order>> customerOrders(@PathVariable Long id) {
+        List<Order> orders = orderRepository.findByCustomerIdOrderByIdAsc(id);
+        // No orders may also mean no such customer; that lookup is usually a cache hit
+        if (orders.isEmpty() && !customerRepository.findById(id).isPresent()) {
+            throw new CustomerNotFoundException(id);
+        }
+        return orderModelAssembler.toCustomerOrders(id, orders);
+    }
 
-        return CollectionModel.of(orders,
-                linkTo(methodOn(OrderController.class).all()).withSelfRel());
+    @GetMapping(value = "/orders/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void export(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        exporter.export(orderRepository::streamAll, response.getOutputStream());
     }
 
     @GetMapping("/orders/{id}")
-    public EntityModel<Order> one(@PathVariable Long id) {
+    public ResponseEntity<RepresentationModel<?>> one(@PathVariable Long id,
+                                                      @RequestParam(required = false) String fields,
+                                                      WebRequest request) {
+        FieldSet<Order> selected = selectedFields(fields);
         Order order = orderRepository.findById(id)
                 .orElseThrow(() -> new OrderNotFoundException(id));
 
-        return orderModelAssembler.toModel(order);
+        if (ETags.notModified(request, order.getVersion())) {
+            return null;
+        }
+        return ETags.tagged(ResponseEntity.ok(), order.getVersion(), request.getHeader(HttpHeaders.ACCEPT))
+                .body(selected == null ? orderModelAssembler.toModel(order) : orderModelAssembler.toSparseModel(selected.of(order)));
     }
 
     @PostMapping("/orders")
     public ResponseEntity<EntityModel<Order>> newOrder(@RequestBody OrderDto orderDTO) {
-        Order order = convertToEntity(orderDTO);
+        Order order = OrderMapper.toEntity(orderDTO);
+        checkCustomer(order.getCustomerId());
 
+        order.setId(null);
         order.setStatus(Status.IN_PROGRESS);
-        Order newOrder = orderRepository.save(order);
+        EntityModel<Order> entityModel = orderModelAssembler.toModel(orderRepository.save(order));
+        counters.added(Status.IN_PROGRESS);
+        generations.ordersChanged();
 
         return ResponseEntity
-                .created(linkTo(methodOn(OrderController.class).one(newOrder.getId())).toUri())
-                .body(orderModelAssembler.toModel(newOrder));
+                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                .body(entityModel);
+    }
+
+    @PostMapping(value = "/orders/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public BulkResult bulkOrders(InputStream body) throws IOException {
+        return bulkInserter.insert(body, OrderDto.class, orderDto -> {
+            Order order = OrderMapper.toEntity(orderDto);
+            order.setId(null);
+            order.setStatus(Status.IN_PROGRESS);
+            return order;
+        }, orderRepository, order -> {
+            counters.added(order.getStatus());
+            generations.ordersChanged();
+        });
     }
 
     @PutMapping("/orders/{id}")
-    public ResponseEntity<EntityModel<Order>> changeOrder(@RequestBody OrderDto newOrderDTO, @PathVariable Long id) {
-        Order newOrder = convertToEntity(newOrderDTO);
-        Order updatedOrder = orderRepository.findById(id)
-                .map(
-                        order -> {
-                            order.setDescription(newOrder.getDescription());
-                            order.setStatus(newOrder.getStatus());
-                            return orderRepository.save(order);
-                        }).orElseGet(() -> {
-                    newOrder.setId(id);
-                    return orderRepository.save(newOrder);
-                });
+    public ResponseEntity<EntityModel<Order>> changeOrder(@RequestBody OrderDto newOrderDTO, @PathVariable Long id,
+                                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        Order newOrder = OrderMapper.toEntity(newOrderDTO);
+        checkCustomer(newOrder.getCustomerId());
+        ReplacedOrder replaced;
+        if (ifMatch == null) {
+            replaced = orderRepository.upsert(id, newOrder);
+        } else {
+            boolean any = ETags.ANY.equals(ifMatch.trim());
+            Long expectedVersion = any ? null : ETags.versionOf(ifMatch);
+            if (!any && expectedVersion == null) {
+                throw new PreconditionFailedException("Order", id);
+            }
+            replaced = orderRepository.replace(id, expectedVersion, newOrder)
+                    .orElseThrow(() -> new PreconditionFailedException("Order", id));
+        }
+        Order updatedOrder = replaced.getOrder();
+        boolean inserted = replaced.isInserted();
+        if (inserted) {
+            counters.added(updatedOrder.getStatus());
+        } else {
+            counters.moved(replaced.getPreviousStatus(), updatedOrder.getStatus());
+        }
+        generations.ordersChanged();
         EntityModel<Order> entityModel = orderModelAssembler.toModel(updatedOrder);
-        return ResponseEntity //
-                .created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri()) //
-                .body(entityModel);
+        ResponseEntity.BodyBuilder response = inserted
+                ? ResponseEntity.created(entityModel.getRequiredLink(IanaLinkRelations.SELF).toUri())
+                : ResponseEntity.ok();
+        return ETags.tagged(response, updatedOrder.getVersion(), accept).body(entityModel);
     }
 
     @DeleteMapping("/orders/{id}/cancel")
     public ResponseEntity<?> cancel(@PathVariable Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new OrderNotFoundException(id));
+        return transition(id, Status.CANCELLED, "cancel");
+    }
 
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.CANCELLED);
-            orderRepository.save(order);
+    @PutMapping("/orders/{id}/complete")
+    public ResponseEntity<?> complete(@PathVariable Long id) {
+        return transition(id, Status.COMPLETED, "complete");
+    }
 
-            return ResponseEntity.ok(orderModelAssembler.toModel(order));
-        }
+    @PostMapping("/orders/transitions")
+    public TransitionResult transitions(@RequestBody List<StatusTransition> transitions) {
+        return orderTransitions.apply(transitions);
+    }
 
-        return ResponseEntity
-                .status(HttpStatus.METHOD_NOT_ALLOWED)
-                .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
-                .body(Problem.create()
-                        .withTitle("Method not allowed")
-                        .withDetail("You can't cancel an order that is in the " + order.getStatus() + " status"));
+    private static FieldSet<Order> selectedFields(String fields) {
+        if (fields == null) {
+            return null;
+        }
+        List<String> names = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (!OrderRepository.FIELDS.has(field)) {
+                throw new BadRequestException("Cannot select " + field + " from orders");
+            }
+            names.add(field);
+        }
+        return OrderRepository.FIELDS.select(names);
     }
 
-    @PutMapping("/orders/{id}/complete")
-    public ResponseEntity<?> complete(@PathVariable Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new OrderNotFoundException(id));
+    private void checkCustomer(Long customerId) {
+        if (customerId != null && !customerRepository.findById(customerId).isPresent()) {
+            throw new BadRequestException("Could not find Customer: " + customerId);
+        }
+    }
 
-        if (order.getStatus() == Status.IN_PROGRESS) {
-            order.setStatus(Status.COMPLETED);
-            orderRepository.save(order);
-            return ResponseEntity.ok(orderModelAssembler.toModel(order));
+    // A single conditional UPDATE both checks and changes the status. The order is only read back when it
+    // did not apply, to tell a missing order from one that is no longer in progress.
+    private ResponseEntity<?> transition(Long id, Status target, String action) {
+        Optional<Order> changed = orderRepository.transition(id, Status.IN_PROGRESS, target);
+        if (changed.isPresent()) {
+            counters.moved(Status.IN_PROGRESS, target);
+            generations.ordersChanged();
+            return ResponseEntity.ok(orderModelAssembler.toModel(changed.get()));
         }
 
+        Order order = orderRepository.findById(id)
+                .orElseThrow(() -> new OrderNotFoundException(id));
         return ResponseEntity
                 .status(HttpStatus.METHOD_NOT_ALLOWED)
                 .header(HttpHeaders.CONTENT_TYPE, MediaTypes.HTTP_PROBLEM_DETAILS_JSON_VALUE)
                 .body(Problem.create()
                         .withTitle("Method not allowed")
-                        .withDetail("You can't complete an order that is in the " + order.getStatus() + " status"));
+                        .withDetail("You can't " + action + " an order that is in the " + order.getStatus() + " status"));
     }
-
-    private Order convertToEntity(OrderDto orderDto) {
-        return modelMapper.map(orderDto, Order.class);
-    }
-
 }
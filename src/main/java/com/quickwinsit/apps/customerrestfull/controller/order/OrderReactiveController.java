@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller.order;
+
+import com.quickwinsit.apps.customerrestfull.controller.ETags;
+import com.quickwinsit.apps.customerrestfull.controller.HalStreamWriter;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.exception.OrderNotFoundException;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderReactiveRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read endpoints of OrderController on WebFlux + R2DBC (the "reactive" profile)
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class OrderReactiveController {
+
+    private final OrderReactiveRepository repository;
+    private final OrderModelAssembler assembler;
+    private final LinkFactory links;
+    private final HalStreamWriter hal;
+
+    @Autowired
+    public OrderReactiveController(OrderReactiveRepository r, OrderModelAssembler a, LinkFactory l, HalStreamWriter h) {
+        this.repository = r;
+        this.assembler = a;
+        this.links = l;
+        this.hal = h;
+    }
+
+    @GetMapping(value = "/orders", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<DataBuffer> all(ServerWebExchange exchange) {
+        LinkFactory.Templates templates = links.templates(HalStreamWriter.baseUri(exchange));
+        return hal.collection(repository.findAll(), Order.class, order -> assembler.toModel(order, templates),
+                templates.orders(IanaLinkRelations.SELF), exchange.getResponse().bufferFactory());
+    }
+
+    // A matching If-None-Match is answered with 304 by WebFlux from the ETag on the entity
+    @GetMapping(value = "/orders/{id}", produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<ResponseEntity<byte[]>> one(@PathVariable Long id, ServerWebExchange exchange) {
+        LinkFactory.Templates templates = links.templates(HalStreamWriter.baseUri(exchange));
+        return repository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new OrderNotFoundException(id)))
+                .map(order -> ETags.tagged(ResponseEntity.ok(), order.getVersion())
+                        .body(hal.write(assembler.toModel(order, templates))));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+@Component
+public class BulkInserter {
+    private static final Logger logger = LoggerFactory.getLogger(BulkInserter.class);
+    private static final int CHUNK_SIZE = 500;
+
+    // What a client is told about a failed row; the exception itself, SQL and values included, only goes to the log
+    static final String MALFORMED_ROW = "Row is not valid JSON";
+    static final String UNREADABLE_ROW = "Row does not match the expected fields";
+    static final String CONSTRAINT_VIOLATION = "Row violates a database constraint";
+    static final String NOT_SAVED = "Row could not be saved";
+
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public BulkInserter(ObjectMapper o, EntityManager e, PlatformTransactionManager t) {
+        this.objectMapper = o;
+        this.entityManager = e;
+        this.transactionTemplate = new TransactionTemplate(t);
+    }
+
+    // Reads a JSON array or NDJSON body one row at a time, so the request is never held in memory as a whole
+    public <D, E> BulkResult insert(InputStream body, Class<D> rowType, Function<D, E> converter,
+                                    JpaRepository<E, ?> repository) throws IOException {
+        return insert(body, rowType, converter, repository, saved -> {
+        });
+    }
+
+    // As above, handing every row to saved once the transaction that inserted it has committed
+    public <D, E> BulkResult insert(InputStream body, Class<D> rowType, Function<D, E> converter,
+                                    JpaRepository<E, ?> repository, Consumer<? super E> saved) throws IOException {
+        BulkResult result = new BulkResult();
+        List<Row<D>> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (MappingIterator<D> rows = objectMapper.readerFor(rowType).readValues(body)) {
+            long row = 0;
+            while (true) {
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    row++;
+                    result.received();
+                    chunk.add(new Row<>(row, rows.nextValue()));
+                } catch (JsonParseException pe) {
+                    // Malformed input cannot be resynchronised: keep what was read so far and stop
+                    logger.warn("Bulk row {} is not valid JSON: {}", row, pe.getOriginalMessage());
+                    result.failed(row, MALFORMED_ROW);
+                    break;
+                } catch (JsonMappingException me) {
+                    logger.warn("Bulk row {} could not be read: {}", row, me.getOriginalMessage());
+                    result.failed(row, UNREADABLE_ROW);
+                }
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    save(chunk, converter, repository, saved, result);
+                    chunk.clear();
+                }
+            }
+        }
+        save(chunk, converter, repository, saved, result);
+
+        return result;
+    }
+
+    private <D, E> void save(List<Row<D>> chunk, Function<D, E> converter, JpaRepository<E, ?> repository,
+                             Consumer<? super E> saved, BulkResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        List<E> entities;
+        try {
+            // One transaction per chunk; hibernate.jdbc.batch_size turns the inserts into JDBC batches
+            entities = transactionTemplate.execute(status -> {
+                List<E> converted = new ArrayList<>(chunk.size());
+                for (Row<D> row : chunk) {
+                    converted.add(converter.apply(row.value));
+                }
+                List<E> inserted = repository.saveAll(converted);
+                entityManager.flush();
+                entityManager.clear();
+                return inserted;
+            });
+            result.created(chunk.size());
+        } catch (RuntimeException e) {
+            // Something in the chunk was rejected: replay it row by row to find out which rows and keep the others
+            for (Row<D> row : chunk) {
+                E entity;
+                try {
+                    entity = transactionTemplate.execute(status -> {
+                        E inserted = repository.save(converter.apply(row.value));
+                        entityManager.flush();
+                        entityManager.clear();
+                        return inserted;
+                    });
+                    result.created(1);
+                } catch (RuntimeException re) {
+                    logger.warn("Bulk row {} could not be saved", row.number, re);
+                    result.failed(row.number, isConstraintViolation(re) ? CONSTRAINT_VIOLATION : NOT_SAVED);
+                    continue;
+                }
+                saved.accept(entity);
+            }
+            return;
+        }
+        entities.forEach(saved);
+    }
+
+    // Hibernate's own exception when flush() runs outside the repository's exception translation
+    private static boolean isConstraintViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Row<D> {
+        private final long number;
+        private final D value;
+
+        Row(long number, D value) {
+            this.number = number;
+            this.value = value;
+        }
+    }
+}
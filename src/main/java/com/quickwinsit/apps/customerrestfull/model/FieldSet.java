@@ -0,0 +1,171 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// The fields a resource can be narrowed to with ?fields=, each computed from one or more entity attributes.
+// A selection only reads the attributes behind its fields, and every row comes back as a map of field name to value.
+public final class FieldSet<T> {
+    private static final String ID = "id";
+
+    private final Class<T> entity;
+    private final Map<String, Field> fields;
+    private final List<String> attributes;
+
+    public FieldSet(Class<T> entity) {
+        this(entity, new LinkedHashMap<>());
+    }
+
+    private FieldSet(Class<T> entity, Map<String, Field> fields) {
+        this.entity = entity;
+        this.fields = fields;
+        this.attributes = new ArrayList<>();
+        for (Field field : fields.values()) {
+            for (String attribute : field.attributes) {
+                if (!attributes.contains(attribute)) {
+                    attributes.add(attribute);
+                }
+            }
+        }
+    }
+
+    // A field holding the attribute of the same name as is
+    public FieldSet<T> field(String name) {
+        return field(name, values -> values[0], name);
+    }
+
+    // A field computed from the values of the given attributes, in that order
+    public FieldSet<T> field(String name, Function<Object[], Object> value, String... attributes) {
+        Map<String, Field> withField = new LinkedHashMap<>(fields);
+        withField.put(name, new Field(attributes, value));
+        return new FieldSet<>(entity, withField);
+    }
+
+    public boolean has(String name) {
+        return fields.containsKey(name);
+    }
+
+    public List<String> names() {
+        return new ArrayList<>(fields.keySet());
+    }
+
+    // Only the named fields, in that order after id: links are built from the id, so it is always selected
+    public FieldSet<T> select(Collection<String> names) {
+        Map<String, Field> selected = new LinkedHashMap<>();
+        selected.put(ID, fields.get(ID));
+        for (String name : names) {
+            Field field = fields.get(name);
+            if (field == null) {
+                throw new IllegalArgumentException("No field " + name + " in " + entity.getSimpleName());
+            }
+            selected.put(name, field);
+        }
+        return new FieldSet<>(entity, selected);
+    }
+
+    // The selected fields of an entity already in memory, e.g. from the cache
+    public Map<String, Object> of(T instance) {
+        BeanWrapper bean = PropertyAccessorFactory.forBeanPropertyAccess(instance);
+        Object[] row = new Object[attributes.size()];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = bean.getPropertyValue(attributes.get(i));
+        }
+        return toMap(row);
+    }
+
+    // SELECT <attributes of the selected fields> FROM <entity> [WHERE ...] [ORDER BY ...]
+    public List<Map<String, Object>> query(EntityManager entityManager, Specification<T> specification, Sort sort) {
+        return query(entityManager, specification, sort, 0, null);
+    }
+
+    public List<Map<String, Object>> query(EntityManager entityManager, Specification<T> specification, Sort sort,
+                                           long offset, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entity);
+        query.multiselect(attributes.stream().map(root::get).toArray(Selection[]::new));
+        Predicate where = specification == null ? null : specification.toPredicate(root, query, cb);
+        if (where != null) {
+            query.where(where);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult((int) offset);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+        List<Tuple> tuples = typedQuery.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            rows.add(toMap(tuple.toArray()));
+        }
+        return rows;
+    }
+
+    private Map<String, Object> toMap(Object[] row) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Field> field : fields.entrySet()) {
+            String[] names = field.getValue().attributes;
+            Object[] arguments = new Object[names.length];
+            for (int i = 0; i < names.length; i++) {
+                arguments[i] = row[attributes.indexOf(names[i])];
+            }
+            values.put(field.getKey(), field.getValue().value.apply(arguments));
+        }
+        return values;
+    }
+
+    private static final class Field {
+        private final String[] attributes;
+        private final Function<Object[], Object> value;
+
+        Field(String[] attributes, Function<Object[], Object> value) {
+            this.attributes = attributes;
+            this.value = value;
+        }
+    }
+}
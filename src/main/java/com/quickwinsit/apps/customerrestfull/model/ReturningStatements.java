@@ -0,0 +1,63 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+// Runs an INSERT, UPDATE or MERGE and reads back columns of the rows it wrote in the same round trip:
+// "<statement> RETURNING <columns>" on Postgres, "SELECT <columns> FROM FINAL TABLE (<statement>)" on H2
+public final class ReturningStatements {
+    private final NamedParameterJdbcTemplate jdbc;
+    private final boolean postgres;
+
+    public ReturningStatements(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(jdbc.getJdbcTemplate().getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+            this.postgres = "PostgreSQL".equals(JdbcUtils.commonDatabaseName(product));
+        } catch (MetaDataAccessException mae) {
+            throw new IllegalStateException("Could not determine the database product", mae);
+        }
+    }
+
+    public boolean isPostgres() {
+        return postgres;
+    }
+
+    public <T> List<T> query(String statement, String columns, SqlParameterSource parameters, RowMapper<T> rowMapper) {
+        String sql = postgres
+                ? statement + " RETURNING " + columns
+                : "SELECT " + columns + " FROM FINAL TABLE (" + statement + ")";
+        return jdbc.query(sql, parameters, rowMapper);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// What the JDBC proxy saw since startup (or the last reset): executions and time per SQL string, and statements
+// per request per route. A request counts the statements run on its own thread between begin and end, which is
+// what gives an N+1 away: a route whose maximum grows with the size of the response.
+@Component
+public class StatementStatistics {
+    // Distinct SQL strings and routes kept; IN-list padding keeps the former small, anything past it is not kept
+    private static final int MAX_TRACKED = 1000;
+
+    private final long slowMillis;
+    private final ThreadLocal<int[]> current = new ThreadLocal<>();
+    private final Map<String, Executions> statements = new ConcurrentHashMap<>();
+    private final Map<String, Requests> routes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StatementStatistics(@Value("${statements.slow-threshold:100ms}") Duration s) {
+        this.slowMillis = s.toMillis();
+    }
+
+    public long getSlowMillis() {
+        return slowMillis;
+    }
+
+    // One round trip to the database, which for a batch runs more than one statement
+    public void executed(List<String> sql, long millis) {
+        int[] count = current.get();
+        if (count != null) {
+            count[0]++;
+        }
+        for (String statement : sql) {
+            Executions executions = tracked(statements, statement, Executions::new);
+            if (executions != null) {
+                executions.add(millis, millis >= slowMillis);
+            }
+        }
+    }
+
+    public void begin() {
+        current.set(new int[1]);
+    }
+
+    // The number of statements since begin, recorded against the route unless it is null
+    public int end(String route) {
+        int[] count = current.get();
+        current.remove();
+        if (count == null) {
+            return 0;
+        }
+        if (route != null) {
+            Requests requests = tracked(routes, route, Requests::new);
+            if (requests != null) {
+                requests.add(count[0]);
+            }
+        }
+        return count[0];
+    }
+
+    // By total time spent, so a fast statement run far too often ranks next to a slow one
+    public List<Map<String, Object>> topStatements(int limit) {
+        List<Map<String, Object>> top = new ArrayList<>();
+        statements.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Executions> e) -> e.getValue().millis.sum()).reversed())
+                .limit(limit)
+                .forEach(e -> {
+                    Map<String, Object> statement = new LinkedHashMap<>();
+                    statement.put("sql", e.getKey());
+                    statement.put("executions", e.getValue().count.sum());
+                    statement.put("totalMillis", e.getValue().millis.sum());
+                    statement.put("maxMillis", e.getValue().maxMillis.get());
+                    statement.put("slowExecutions", e.getValue().slow.sum());
+                    top.add(statement);
+                });
+        return top;
+    }
+
+    // By the most statements a single request took
+    public List<Map<String, Object>> topRoutes(int limit) {
+        List<Map<String, Object>> top = new ArrayList<>();
+        routes.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Requests> e) -> e.getValue().maxStatements.get()).reversed())
+                .limit(limit)
+                .forEach(e -> {
+                    Map<String, Object> route = new LinkedHashMap<>();
+                    route.put("route", e.getKey());
+                    route.put("requests", e.getValue().count.sum());
+                    route.put("statements", e.getValue().statements.sum());
+                    route.put("maxStatements", e.getValue().maxStatements.get());
+                    top.add(route);
+                });
+        return top;
+    }
+
+    public void reset() {
+        statements.clear();
+        routes.clear();
+    }
+
+    private static <T> T tracked(Map<String, T> map, String key, Supplier<T> create) {
+        T value = map.get(key);
+        if (value == null && map.size() < MAX_TRACKED) {
+            value = map.computeIfAbsent(key, k -> create.get());
+        }
+        return value;
+    }
+
+    private static final class Executions {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder millis = new LongAdder();
+        private final LongAccumulator maxMillis = new LongAccumulator(Math::max, 0);
+        private final LongAdder slow = new LongAdder();
+
+        private void add(long elapsed, boolean isSlow) {
+            count.increment();
+            millis.add(elapsed);
+            maxMillis.accumulate(elapsed);
+            if (isSlow) {
+                slow.increment();
+            }
+        }
+    }
+
+    private static final class Requests {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+
+        private void add(int executed) {
+            count.increment();
+            statements.add(executed);
+            maxStatements.accumulate(executed);
+        }
+    }
+}
@@ -25,6 +25,7 @@
 package com.quickwinsit.apps.customerrestfull.model.customer;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateDeserializer;
@@ -37,7 +38,8 @@ import java.util.Objects;
 @Entity
 public class Customer {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_id")
+    @SequenceGenerator(name = "customer_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private long id;
 
     private String lastName;
@@ -48,6 +50,10 @@ public class Customer {
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "dd-MM-yyyy")
     private LocalDate birthDate;
 
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Customer() {
         super();
     }
@@ -107,6 +113,14 @@ public class Customer {
         this.birthDate = birthDate;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
 
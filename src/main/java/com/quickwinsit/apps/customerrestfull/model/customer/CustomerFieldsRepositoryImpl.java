@@ -0,0 +1,53 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.customer;
+
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Map;
+
+public class CustomerFieldsRepositoryImpl implements CustomerFieldsRepository {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public CustomerFieldsRepositoryImpl(EntityManager e) {
+        this.entityManager = e;
+    }
+
+    @Override
+    public List<Map<String, Object>> findAll(FieldSet<Customer> fields) {
+        return fields.query(entityManager, null, Sort.unsorted());
+    }
+
+    @Override
+    public List<Map<String, Object>> findByIdGreaterThan(long id, int limit, FieldSet<Customer> fields) {
+        return fields.query(entityManager, (root, query, cb) -> cb.greaterThan(root.get("id"), id), Sort.by("id"), 0, limit);
+    }
+}
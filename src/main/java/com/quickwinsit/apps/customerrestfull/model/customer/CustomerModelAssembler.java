@@ -24,21 +24,214 @@
 
 package com.quickwinsit.apps.customerrestfull.model.customer;
 
-import com.quickwinsit.apps.customerrestfull.controller.customer.CustomerController;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class CustomerModelAssembler implements RepresentationModelAssembler<Customer, EntityModel<Customer>> {
+    private static final LinkRelation CUSTOMERS = LinkRelation.of("customerList");
+    private static final LinkRelation ORDERS = LinkRelation.of("orders");
+
+    private final LinkFactory links;
+    private final OrderModelAssembler orderAssembler;
+
+    @Autowired
+    public CustomerModelAssembler(LinkFactory l, OrderModelAssembler o) {
+        this.links = l;
+        this.orderAssembler = o;
+    }
 
     @Override
     public EntityModel<Customer> toModel(Customer customer) {
+        return toModel(customer, links.templates());
+    }
+
+    public EntityModel<Customer> toModel(Customer customer, LinkFactory.Templates templates) {
         return EntityModel.of(customer,
-                linkTo(methodOn(CustomerController.class).getSingleCustomer(customer.getId())).withSelfRel(),
-                linkTo(methodOn(CustomerController.class).allCustomers()).withRel("customers"));
+                templates.customer(customer.getId()),
+                templates.customers());
+    }
+
+    @Override
+    public CollectionModel<EntityModel<Customer>> toCollectionModel(Iterable<? extends Customer> customers) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Customer>> models = new ArrayList<>();
+        for (Customer customer : customers) {
+            models.add(toModel(customer, templates));
+        }
+        return CollectionModel.of(models, templates.customers(IanaLinkRelations.SELF));
+    }
+
+    public CollectionModel<EntityModel<Customer>> toPage(List<Customer> customers, long after, int limit) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Customer>> models = customers.stream()
+                .map(customer -> toModel(customer, templates))
+                .collect(Collectors.toList());
+        CollectionModel<EntityModel<Customer>> page = CollectionModel.of(models, templates.customersPage(after, limit, IanaLinkRelations.SELF));
+
+        // A full page means there may be more rows: the next page seeks past the last id of this one
+        if (customers.size() == limit) {
+            page.add(templates.customersPage(customers.get(customers.size() - 1).getId(), limit, IanaLinkRelations.NEXT));
+        }
+
+        return page;
+    }
+
+    public CollectionModel<EntityModel<Customer>> toSearchPage(Slice<Customer> customers, CustomerSearch search) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Customer>> models = customers.stream()
+                .map(customer -> toModel(customer, templates))
+                .collect(Collectors.toList());
+        Pageable pageable = customers.getPageable();
+        CollectionModel<EntityModel<Customer>> page = CollectionModel.of(models,
+                templates.customersSearch(searchQuery(search, pageable), IanaLinkRelations.SELF));
+
+        if (customers.hasNext()) {
+            page.add(templates.customersSearch(searchQuery(search, pageable.next()), IanaLinkRelations.NEXT));
+        }
+        if (customers.hasPrevious()) {
+            page.add(templates.customersSearch(searchQuery(search, pageable.previousOrFirst()), IanaLinkRelations.PREV));
+        }
+
+        return page;
+    }
+
+    public CollectionModel<EntityModel<Customer>> toSuggestions(List<Customer> customers, String q, int limit) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Customer>> models = customers.stream()
+                .map(customer -> toModel(customer, templates))
+                .collect(Collectors.toList());
+        String query = UriComponentsBuilder.newInstance()
+                .queryParam("q", q)
+                .queryParam("limit", limit)
+                .encode()
+                .build()
+                .getQuery();
+        return CollectionModel.of(models, templates.customersSuggest(query, IanaLinkRelations.SELF));
+    }
+
+    // ?fields=: a customer narrowed to the selected fields, with only its self link
+    public EntityModel<Map<String, Object>> toSparseModel(Map<String, Object> customer) {
+        return toSparseModel(customer, links.templates());
+    }
+
+    public EntityModel<Map<String, Object>> toSparseModel(Map<String, Object> customer, LinkFactory.Templates templates) {
+        return EntityModel.of(customer, templates.customer(id(customer)));
+    }
+
+    // Collection links carry the same ?fields=, so following them keeps the selection
+    public RepresentationModel<?> toSparseCollectionModel(List<Map<String, Object>> customers, FieldSet<Customer> fields) {
+        LinkFactory.Templates templates = links.templates();
+        return toSparseCollection(customers, templates, List.of(withFields(templates.customers(IanaLinkRelations.SELF), fields)));
+    }
+
+    public RepresentationModel<?> toSparsePage(List<Map<String, Object>> customers, long after, int limit, FieldSet<Customer> fields) {
+        LinkFactory.Templates templates = links.templates();
+        List<Link> pageLinks = new ArrayList<>();
+        pageLinks.add(withFields(templates.customersPage(after, limit, IanaLinkRelations.SELF), fields));
+        if (customers.size() == limit) {
+            pageLinks.add(withFields(templates.customersPage(id(customers.get(customers.size() - 1)), limit, IanaLinkRelations.NEXT), fields));
+        }
+        return toSparseCollection(customers, templates, pageLinks);
+    }
+
+    public RepresentationModel<?> toSparseSearchPage(Slice<Map<String, Object>> customers, CustomerSearch search, FieldSet<Customer> fields) {
+        LinkFactory.Templates templates = links.templates();
+        Pageable pageable = customers.getPageable();
+        List<Link> pageLinks = new ArrayList<>();
+        pageLinks.add(withFields(templates.customersSearch(searchQuery(search, pageable), IanaLinkRelations.SELF), fields));
+        if (customers.hasNext()) {
+            pageLinks.add(withFields(templates.customersSearch(searchQuery(search, pageable.next()), IanaLinkRelations.NEXT), fields));
+        }
+        if (customers.hasPrevious()) {
+            pageLinks.add(withFields(templates.customersSearch(searchQuery(search, pageable.previousOrFirst()), IanaLinkRelations.PREV), fields));
+        }
+        return toSparseCollection(customers.getContent(), templates, pageLinks);
+    }
+
+    // The same representation with the customer's orders under _embedded.orders
+    public RepresentationModel<?> withOrders(EntityModel<Customer> customer, List<Order> orders) {
+        return withOrders(customer, orders, links.templates());
+    }
+
+    // The same collection with every customer's orders embedded, looked up in orders by customer id
+    public RepresentationModel<?> withOrders(CollectionModel<EntityModel<Customer>> customers, Map<Long, List<Order>> orders) {
+        LinkFactory.Templates templates = links.templates();
+        List<RepresentationModel<?>> models = new ArrayList<>();
+        for (EntityModel<Customer> customer : customers) {
+            models.add(withOrders(customer, orders.getOrDefault(customer.getContent().getId(), List.of()), templates));
+        }
+        // Following self, next or prev keeps the orders embedded
+        List<Link> collectionLinks = customers.getLinks().stream()
+                .map(link -> LinkFactory.withQueryParam(link, "embed", "orders"))
+                .collect(Collectors.toList());
+        return HalModelBuilder.emptyHalModel()
+                .embed(models, CUSTOMERS)
+                .links(collectionLinks)
+                .build();
+    }
+
+    private RepresentationModel<?> withOrders(EntityModel<Customer> customer, List<Order> orders, LinkFactory.Templates templates) {
+        Customer content = customer.getContent();
+        return HalModelBuilder.halModelOf(content)
+                .links(customer.getLinks())
+                .link(templates.customerOrders(content.getId(), ORDERS))
+                .embed(orderAssembler.toModels(orders, templates), ORDERS)
+                .build();
+    }
+
+    // Under _embedded.customerList like full customers: a map's own relation would be linkedHashMapList
+    private RepresentationModel<?> toSparseCollection(List<Map<String, Object>> customers, LinkFactory.Templates templates,
+                                                      List<Link> collectionLinks) {
+        List<EntityModel<Map<String, Object>>> models = new ArrayList<>(customers.size());
+        for (Map<String, Object> customer : customers) {
+            models.add(toSparseModel(customer, templates));
+        }
+        return HalModelBuilder.emptyHalModel()
+                .embed(models, CUSTOMERS)
+                .links(collectionLinks)
+                .build();
+    }
+
+    private static long id(Map<String, Object> customer) {
+        return ((Number) customer.get("id")).longValue();
+    }
+
+    private static Link withFields(Link link, FieldSet<Customer> fields) {
+        return LinkFactory.withQueryParam(link, "fields", String.join(",", fields.names()));
+    }
+
+    private static String searchQuery(CustomerSearch search, Pageable pageable) {
+        UriComponentsBuilder query = search.appendTo(UriComponentsBuilder.newInstance());
+        for (Sort.Order order : pageable.getSort()) {
+            query.queryParam("sort", order.getProperty() + "," + order.getDirection().name().toLowerCase(Locale.ROOT));
+        }
+        return query.queryParam("page", pageable.getPageNumber())
+                .queryParam("size", pageable.getPageSize())
+                .encode()
+                .build()
+                .getQuery();
     }
 }
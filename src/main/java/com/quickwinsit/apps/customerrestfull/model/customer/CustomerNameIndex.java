@@ -0,0 +1,453 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.customer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// In-memory trigram index over customer names behind GET /customers/suggest. Every customer takes a slot, and
+// every trigram of its normalised "first last" name lists the slots that contain it in ascending order. A lookup
+// intersects the lists of the query's trigrams and checks the survivors, without touching the database.
+// Replaced and deleted customers leave dead slots behind until enough pile up to compact.
+// Sizing: about 300 bytes of heap per customer, so the default cap of 100000 takes about 30 MB.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class CustomerNameIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CustomerNameIndex.class);
+    private static final int LOAD_CHUNK_SIZE = 500;
+    private static final int NO_BIRTH_DATE = Integer.MIN_VALUE;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Best first: the name starts with the query, then a word does, then anything else; shorter names first
+    private static final Comparator<Match> BEST_FIRST = Comparator.<Match>comparingInt(m -> m.rank)
+            .thenComparingInt(m -> m.length)
+            .thenComparingLong(m -> m.id);
+
+    private final CustomerRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int maxEntries;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // One column per field, one row per slot; keys[slot] is null for a dead slot
+    private long[] ids = new long[1024];
+    private String[] keys = new String[1024];
+    private String[] lastNames = new String[1024];
+    private String[] firstNames = new String[1024];
+    private int[] birthDates = new int[1024];
+    private int slots;
+    private int dead;
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    // Set for good once a customer has been left out; suggestions are then drawn from part of the table only
+    private volatile boolean full;
+    // Ids put or removed while load() runs, whose streamed rows may be older than what the index already has
+    private Set<Long> writtenDuringLoad;
+
+    @Autowired
+    public CustomerNameIndex(CustomerRepository r, PlatformTransactionManager t, EntityManager e,
+                             @Value("${customers.suggest.max-entries:100000}") int m) {
+        this.repository = r;
+        this.transactionTemplate = new TransactionTemplate(t);
+        this.transactionTemplate.setReadOnly(true);
+        this.entityManager = e;
+        this.maxEntries = m;
+    }
+
+    // Listeners run before the readiness state moves to ACCEPTING_TRAFFIC, so the probe waits for the index.
+    // Requests may already be writing, so a streamed row never overrides a put or remove made since the load began.
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Customer> customers = repository.streamAll()) {
+                    int rows = 0;
+                    for (Customer customer : (Iterable<Customer>) customers::iterator) {
+                        loaded(customer);
+                        // Every row left would be dropped anyway
+                        if (full) {
+                            break;
+                        }
+                        if (++rows % LOAD_CHUNK_SIZE == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                }
+            });
+        } finally {
+            lock.writeLock().lock();
+            try {
+                writtenDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        logger.info("Indexed {} customer names in {} ms", size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    public void put(Customer customer) {
+        String key = key(customer);
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(customer.getId());
+            }
+            index(customer, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loaded(Customer customer) {
+        String key = key(customer);
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad == null || !writtenDuringLoad.contains(customer.getId())) {
+                index(customer, key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Normalised outside the lock
+    private static String key(Customer customer) {
+        return normalize(customer.getFirstName() + " " + customer.getLastName());
+    }
+
+    // Callers hold the write lock
+    private void index(Customer customer, String key) {
+        Integer previous = slotById.remove(customer.getId());
+        if (previous != null) {
+            kill(previous);
+        } else if (slotById.size() >= maxEntries) {
+            if (!full) {
+                logger.warn("Customer name index is full at {} entries, new customers will not be suggested", maxEntries);
+                full = true;
+            }
+            return;
+        }
+        int slot = allocate();
+        ids[slot] = customer.getId();
+        keys[slot] = key;
+        lastNames[slot] = customer.getLastName();
+        firstNames[slot] = customer.getFirstName();
+        birthDates[slot] = customer.getBirthDate() == null ? NO_BIRTH_DATE : (int) customer.getBirthDate().toEpochDay();
+        slotById.put(customer.getId(), slot);
+        for (long trigram : trigrams(" " + key + " ")) {
+            postings.computeIfAbsent(trigram, t -> new Postings()).add(slot);
+        }
+        compactIfNeeded();
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(id);
+            }
+            Integer slot = slotById.remove(id);
+            if (slot != null) {
+                kill(slot);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Names with a word starting with the query come first; queries of three or more characters then fall back to
+    // names containing it anywhere
+    public List<Customer> suggest(String query, int limit) {
+        String q = normalize(query);
+        if (q.length() < 2 || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+            Set<Integer> added = new HashSet<>();
+            collect(q, trigrams(" " + q), false, limit, best, added);
+            if (best.size() < limit && q.length() >= 3) {
+                collect(q, trigrams(q), true, limit, best, added);
+            }
+
+            List<Match> matches = new ArrayList<>(best);
+            matches.sort(BEST_FIRST);
+            List<Customer> customers = new ArrayList<>(matches.size());
+            for (Match match : matches) {
+                int slot = match.slot;
+                LocalDate birthDate = birthDates[slot] == NO_BIRTH_DATE ? null : LocalDate.ofEpochDay(birthDates[slot]);
+                customers.add(new Customer(ids[slot], lastNames[slot], firstNames[slot], birthDate));
+            }
+            return customers;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every slot in the intersection is ranked; once the queue is full, a key that could not beat its worst entry
+    // even at the best rank this pass gives is skipped before its substrings are checked, so broad queries stay
+    // cheap. Both checks use BEST_FIRST itself, so ties fall to the smaller id whatever the slot order.
+    // The word-prefix pass takes ranks 0 and 1, the substring pass only rank 2, and neither adds a slot twice.
+    private void collect(String q, Set<Long> grams, boolean substrings, int limit, PriorityQueue<Match> best,
+                         Set<Integer> added) {
+        Postings[] lists = new Postings[grams.size()];
+        int n = 0;
+        for (long gram : grams) {
+            Postings list = postings.get(gram);
+            if (list == null) {
+                return;
+            }
+            lists[n++] = list;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int bestRank = substrings ? 2 : 0;
+        int[] at = new int[lists.length];
+        for (int slot = next(lists, at); slot >= 0; slot = next(lists, at)) {
+            String key = keys[slot];
+            if (key == null) {
+                continue;
+            }
+            if (best.size() == limit
+                    && BEST_FIRST.compare(new Match(slot, bestRank, key.length(), ids[slot]), best.peek()) >= 0) {
+                continue;
+            }
+            // Every trigram being there does not make a substring, so check the key itself
+            int rank = rank(key, q);
+            if (rank < 0 || substrings != (rank == 2) || added.contains(slot)) {
+                continue;
+            }
+            Match match = new Match(slot, rank, key.length(), ids[slot]);
+            if (best.size() == limit) {
+                if (BEST_FIRST.compare(match, best.peek()) >= 0) {
+                    continue;
+                }
+                best.poll();
+            }
+            best.add(match);
+            added.add(slot);
+        }
+    }
+
+    // From the best occurrence: 0 when the name starts with the query, 1 when a later word does, 2 when it is only
+    // inside a word, -1 when it is not there at all
+    private static int rank(String key, String q) {
+        if (key.startsWith(q)) {
+            return 0;
+        }
+        if (key.contains(" " + q)) {
+            return 1;
+        }
+        return key.contains(q) ? 2 : -1;
+    }
+
+    // Leapfrog intersection: each list gallops forward to the largest slot seen so far until all of them agree
+    private static int next(Postings[] lists, int[] at) {
+        if (at[0] >= lists[0].size) {
+            return -1;
+        }
+        int target = lists[0].slots[at[0]];
+        int agreed = 1;
+        for (int i = 1 % lists.length; agreed < lists.length; i = (i + 1) % lists.length) {
+            Postings list = lists[i];
+            at[i] = gallop(list, at[i], target);
+            if (at[i] == list.size) {
+                return -1;
+            }
+            if (list.slots[at[i]] == target) {
+                agreed++;
+            } else {
+                target = list.slots[at[i]];
+                agreed = 1;
+            }
+        }
+        at[0] = gallop(lists[0], at[0], target) + 1;
+        return target;
+    }
+
+    // First position at or after from holding a slot no smaller than target
+    private static int gallop(Postings list, int from, int target) {
+        int[] slots = list.slots;
+        if (from >= list.size || slots[from] >= target) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < list.size && slots[high] < target) {
+            low = high;
+            step <<= 1;
+            high = low + step;
+        }
+        int found = Arrays.binarySearch(slots, low + 1, Math.min(high, list.size), target);
+        return found >= 0 ? found : -found - 1;
+    }
+
+    // Lower case without accents, with anything but letters and digits collapsed into single spaces
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text == null ? "" : text, Normalizer.Form.NFD);
+        String plain = MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+        return SEPARATORS.matcher(plain).replaceAll(" ").trim();
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return grams;
+    }
+
+    private int allocate() {
+        if (slots == ids.length) {
+            int capacity = slots + (slots >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+            lastNames = Arrays.copyOf(lastNames, capacity);
+            firstNames = Arrays.copyOf(firstNames, capacity);
+            birthDates = Arrays.copyOf(birthDates, capacity);
+        }
+        return slots++;
+    }
+
+    private void kill(int slot) {
+        keys[slot] = null;
+        lastNames[slot] = null;
+        firstNames[slot] = null;
+        dead++;
+    }
+
+    // Once a quarter of the slots are dead, move the live ones down and rebuild the lists from their keys
+    private void compactIfNeeded() {
+        if (dead < 1024 || dead < slots / 4) {
+            return;
+        }
+        int live = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (keys[slot] != null) {
+                ids[live] = ids[slot];
+                keys[live] = keys[slot];
+                lastNames[live] = lastNames[slot];
+                firstNames[live] = firstNames[slot];
+                birthDates[live] = birthDates[slot];
+                live++;
+            }
+        }
+        Arrays.fill(keys, live, slots, null);
+        Arrays.fill(lastNames, live, slots, null);
+        Arrays.fill(firstNames, live, slots, null);
+        slots = live;
+        dead = 0;
+
+        slotById.clear();
+        postings.clear();
+        for (int slot = 0; slot < slots; slot++) {
+            slotById.put(ids[slot], slot);
+            for (long trigram : trigrams(" " + keys[slot] + " ")) {
+                postings.computeIfAbsent(trigram, t -> new Postings()).add(slot);
+            }
+        }
+    }
+
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size + (size >> 1) + 1);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    private static final class Match {
+        private final int slot;
+        private final int rank;
+        private final int length;
+        private final long id;
+
+        Match(int slot, int rank, int length, long id) {
+            this.slot = slot;
+            this.rank = rank;
+            this.length = length;
+            this.id = id;
+        }
+    }
+}
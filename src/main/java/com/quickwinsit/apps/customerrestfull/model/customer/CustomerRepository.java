@@ -24,7 +24,52 @@
 
 package com.quickwinsit.apps.customerrestfull.model.customer;
 
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface CustomerRepository extends JpaRepository<Customer, Long> {
+import javax.persistence.QueryHint;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@CacheConfig(cacheNames = "customers")
+public interface CustomerRepository extends JpaRepository<Customer, Long>, CustomerWriteRepository,
+        CustomerSearchRepository, CustomerFieldsRepository {
+
+    @Override
+    @Cacheable(unless = "#result == null")
+    Optional<Customer> findById(Long id);
+
+    @Override
+    @CachePut(key = "#result.id")
+    <S extends Customer> S save(S entity);
+
+    @Override
+    @CachePut(key = "#result.id")
+    Customer upsert(long id, Customer customer);
+
+    @Override
+    @CachePut(key = "#id", unless = "#result == null")
+    Optional<Customer> replace(long id, Long expectedVersion, Customer customer);
+
+    @Override
+    @CacheEvict
+    void deleteById(Long id);
+
+    // Keyset page: an index seek past the last id the client saw, so every page costs the same
+    List<Customer> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Full scan behind a server-side cursor; must be consumed inside a read-only transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select c from Customer c order by c.id")
+    Stream<Customer> streamAll();
 }
@@ -0,0 +1,102 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.customer;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import javax.persistence.criteria.Predicate;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+// The optional filters of GET /customers/search; the ones given are AND-ed into a single WHERE clause
+public class CustomerSearch {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    private final String lastName;
+    private final String firstName;
+    private final LocalDate birthDateFrom;
+    private final LocalDate birthDateTo;
+
+    public CustomerSearch(String lastName, String firstName, LocalDate birthDateFrom, LocalDate birthDateTo) {
+        this.lastName = blankToNull(lastName);
+        this.firstName = blankToNull(firstName);
+        this.birthDateFrom = birthDateFrom;
+        this.birthDateTo = birthDateTo;
+    }
+
+    // Last name is a prefix and first name an exact match, both ignoring case. They compare lower(column),
+    // which the search index migration indexes on Postgres. The birth date range is inclusive at both ends.
+    public Specification<Customer> toSpecification() {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>(4);
+            if (lastName != null) {
+                predicates.add(cb.like(cb.lower(root.get("lastName")), escapeLike(lower(lastName)) + "%", '\\'));
+            }
+            if (firstName != null) {
+                predicates.add(cb.equal(cb.lower(root.get("firstName")), lower(firstName)));
+            }
+            if (birthDateFrom != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("birthDate"), birthDateFrom));
+            }
+            if (birthDateTo != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("birthDate"), birthDateTo));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    // The query parameters that repeat this search, for page links
+    public UriComponentsBuilder appendTo(UriComponentsBuilder uri) {
+        if (lastName != null) {
+            uri.queryParam("lastName", lastName);
+        }
+        if (firstName != null) {
+            uri.queryParam("firstName", firstName);
+        }
+        if (birthDateFrom != null) {
+            uri.queryParam("birthDateFrom", DATE_FORMAT.format(birthDateFrom));
+        }
+        if (birthDateTo != null) {
+            uri.queryParam("birthDateTo", DATE_FORMAT.format(birthDateTo));
+        }
+        return uri;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    private static String lower(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
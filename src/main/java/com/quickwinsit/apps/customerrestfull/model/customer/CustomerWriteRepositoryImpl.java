@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.customer;
+
+import com.quickwinsit.apps.customerrestfull.model.ReturningStatements;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+
+public class CustomerWriteRepositoryImpl implements CustomerWriteRepository {
+    // The sub-select only yields the id of an existing row, which then conflicts and is updated in place;
+    // otherwise the row goes in under the next value of the pooled sequence, like a Hibernate insert
+    private static final String POSTGRES_UPSERT = "INSERT INTO customer AS c (id, last_name, first_name, birth_date, version) "
+            + "VALUES (COALESCE((SELECT id FROM customer WHERE id = :id), nextval('hibernate_sequence')), "
+            + ":lastName, :firstName, :birthDate, 0) "
+            + "ON CONFLICT (id) DO UPDATE SET last_name = EXCLUDED.last_name, first_name = EXCLUDED.first_name, "
+            + "birth_date = EXCLUDED.birth_date, version = c.version + 1";
+    private static final String H2_UPSERT = "MERGE INTO customer c USING (VALUES (CAST(:id AS BIGINT))) s(id) ON c.id = s.id "
+            + "WHEN MATCHED THEN UPDATE SET last_name = :lastName, first_name = :firstName, birth_date = :birthDate, "
+            + "version = c.version + 1 "
+            + "WHEN NOT MATCHED THEN INSERT (id, last_name, first_name, birth_date, version) "
+            + "VALUES (NEXT VALUE FOR hibernate_sequence, :lastName, :firstName, :birthDate, 0)";
+    private static final String REPLACE = "UPDATE customer SET last_name = :lastName, first_name = :firstName, "
+            + "birth_date = :birthDate, version = version + 1 WHERE id = :id";
+
+    private final ReturningStatements statements;
+
+    @Autowired
+    public CustomerWriteRepositoryImpl(NamedParameterJdbcTemplate j) {
+        this.statements = new ReturningStatements(j);
+    }
+
+    @Override
+    public Customer upsert(long id, Customer customer) {
+        String upsert = statements.isPostgres() ? POSTGRES_UPSERT : H2_UPSERT;
+        return statements.query(upsert, "id, version", parameters(id, customer),
+                (rs, row) -> copy(rs.getLong("id"), rs.getLong("version"), customer)).get(0);
+    }
+
+    @Override
+    public Optional<Customer> replace(long id, Long expectedVersion, Customer customer) {
+        MapSqlParameterSource parameters = parameters(id, customer);
+        String replace = REPLACE;
+        if (expectedVersion != null) {
+            replace += " AND version = :version";
+            parameters.addValue("version", expectedVersion);
+        }
+        List<Customer> replaced = statements.query(replace, "version", parameters,
+                (rs, row) -> copy(id, rs.getLong("version"), customer));
+        return replaced.stream().findFirst();
+    }
+
+    private static MapSqlParameterSource parameters(long id, Customer customer) {
+        return new MapSqlParameterSource("id", id)
+                .addValue("lastName", customer.getLastName(), Types.VARCHAR)
+                .addValue("firstName", customer.getFirstName(), Types.VARCHAR)
+                .addValue("birthDate", customer.getBirthDate(), Types.DATE);
+    }
+
+    private static Customer copy(long id, long version, Customer customer) {
+        Customer stored = new Customer(id, customer.getLastName(), customer.getFirstName(), customer.getBirthDate());
+        stored.setVersion(version);
+        return stored;
+    }
+}
@@ -24,22 +24,37 @@
 
 package com.quickwinsit.apps.customerrestfull.model.order;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.util.Objects;
 
 @Entity
 @Table(name = "CUSTOMER_ORDER")
 public class Order {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_id")
+    @SequenceGenerator(name = "order_id", sequenceName = "hibernate_sequence", allocationSize = 50)
     private Long id;
 
     private String description;
     private Status status;
 
+    // The owning customer by id only: a lazy @ManyToOne proxy would not survive the cache or serialization
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Version
+    @JsonIgnore
+    private Long version;
+
     public Order(Long i, String d, Status s) {
         this.id = i;
         this.description = d;
@@ -79,6 +94,22 @@ public class Order {
         this.status = status;
     }
 
+    public Long getCustomerId() {
+        return this.customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
+
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o)
@@ -28,6 +28,7 @@ public class OrderDto {
     private Long id;
     private String description;
     private Status status;
+    private Long customerId;
 
     public Long getId() {
         return id;
@@ -52,4 +53,12 @@ public class OrderDto {
     public void setStatus(Status status) {
         this.status = status;
     }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(Long customerId) {
+        this.customerId = customerId;
+    }
 }
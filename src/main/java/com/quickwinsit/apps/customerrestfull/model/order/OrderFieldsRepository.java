@@ -0,0 +1,45 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+
+import java.util.List;
+import java.util.Map;
+
+// Reads for ?fields=: only the columns behind the selected fields are fetched, and no entity is built
+public interface OrderFieldsRepository {
+
+    FieldSet<Order> FIELDS = new FieldSet<>(Order.class)
+            .field("id")
+            .field("description")
+            .field("status")
+            .field("customerId");
+
+    List<Map<String, Object>> findAll(FieldSet<Order> fields);
+
+    // Keyset page, as findByIdGreaterThanOrderByIdAsc
+    List<Map<String, Object>> findByIdGreaterThan(long id, int limit, FieldSet<Order> fields);
+}
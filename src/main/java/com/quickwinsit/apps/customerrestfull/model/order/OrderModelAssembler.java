@@ -24,32 +24,140 @@
 
 package com.quickwinsit.apps.customerrestfull.model.order;
 
-import com.quickwinsit.apps.customerrestfull.controller.order.OrderController;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
 import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.LinkRelation;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.hateoas.mediatype.hal.HalModelBuilder;
 import org.springframework.hateoas.server.RepresentationModelAssembler;
 import org.springframework.stereotype.Component;
 
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.linkTo;
-import static org.springframework.hateoas.server.mvc.WebMvcLinkBuilder.methodOn;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Component
 public class OrderModelAssembler implements RepresentationModelAssembler<Order, EntityModel<Order>> {
+    private static final LinkRelation CUSTOMER = LinkRelation.of("customer");
+    private static final LinkRelation ORDERS = LinkRelation.of("orderList");
 
+    private final LinkFactory links;
+
+    @Autowired
+    public OrderModelAssembler(LinkFactory l) {
+        this.links = l;
+    }
 
     @Override
     public EntityModel<Order> toModel(Order order) {
+        return toModel(order, links.templates());
+    }
+
+    public EntityModel<Order> toModel(Order order, LinkFactory.Templates templates) {
         // Unconditional links to single-item resource and aggregate root
         EntityModel<Order> orderModel = EntityModel.of(order,
-                linkTo(methodOn(OrderController.class).one(order.getId())).withSelfRel(),
-                linkTo(methodOn(OrderController.class).all()).withRel("orders"));
+                templates.order(order.getId()),
+                templates.orders());
+        if (order.getCustomerId() != null) {
+            orderModel.add(templates.customer(order.getCustomerId(), CUSTOMER));
+        }
 
         // Conditional links based on state of the order
         if (order.getStatus() == Status.IN_PROGRESS) {
-            orderModel.add(linkTo(methodOn(OrderController.class).cancel(order.getId())).withRel("cancel"));
-            orderModel.add(linkTo(methodOn(OrderController.class).complete(order.getId())).withRel("complete"));
+            orderModel.add(templates.cancel(order.getId()));
+            orderModel.add(templates.complete(order.getId()));
         }
 
         return orderModel;
     }
 
+    @Override
+    public CollectionModel<EntityModel<Order>> toCollectionModel(Iterable<? extends Order> orders) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Order>> models = new ArrayList<>();
+        for (Order order : orders) {
+            models.add(toModel(order, templates));
+        }
+        return CollectionModel.of(models, templates.orders(IanaLinkRelations.SELF));
+    }
+
+    public List<EntityModel<Order>> toModels(List<Order> orders, LinkFactory.Templates templates) {
+        List<EntityModel<Order>> models = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            models.add(toModel(order, templates));
+        }
+        return models;
+    }
+
+    public CollectionModel<EntityModel<Order>> toCustomerOrders(long customerId, List<Order> orders) {
+        LinkFactory.Templates templates = links.templates();
+        return CollectionModel.of(toModels(orders, templates), templates.customerOrders(customerId, IanaLinkRelations.SELF));
+    }
+
+    public CollectionModel<EntityModel<Order>> toPage(List<Order> orders, long after, int limit) {
+        LinkFactory.Templates templates = links.templates();
+        List<EntityModel<Order>> models = orders.stream()
+                .map(order -> toModel(order, templates))
+                .collect(Collectors.toList());
+        CollectionModel<EntityModel<Order>> page = CollectionModel.of(models, templates.ordersPage(after, limit, IanaLinkRelations.SELF));
+
+        // A full page means there may be more rows: the next page seeks past the last id of this one
+        if (orders.size() == limit) {
+            page.add(templates.ordersPage(orders.get(orders.size() - 1).getId(), limit, IanaLinkRelations.NEXT));
+        }
+
+        return page;
+    }
+
+    // ?fields=: an order narrowed to the selected fields, with only its self link; the status links need the status
+    public EntityModel<Map<String, Object>> toSparseModel(Map<String, Object> order) {
+        return toSparseModel(order, links.templates());
+    }
+
+    public EntityModel<Map<String, Object>> toSparseModel(Map<String, Object> order, LinkFactory.Templates templates) {
+        return EntityModel.of(order, templates.order(id(order)));
+    }
+
+    // Collection links carry the same ?fields=, so following them keeps the selection
+    public RepresentationModel<?> toSparseCollectionModel(List<Map<String, Object>> orders, FieldSet<Order> fields) {
+        LinkFactory.Templates templates = links.templates();
+        return toSparseCollection(orders, templates, List.of(withFields(templates.orders(IanaLinkRelations.SELF), fields)));
+    }
+
+    public RepresentationModel<?> toSparsePage(List<Map<String, Object>> orders, long after, int limit, FieldSet<Order> fields) {
+        LinkFactory.Templates templates = links.templates();
+        List<Link> pageLinks = new ArrayList<>();
+        pageLinks.add(withFields(templates.ordersPage(after, limit, IanaLinkRelations.SELF), fields));
+        if (orders.size() == limit) {
+            pageLinks.add(withFields(templates.ordersPage(id(orders.get(orders.size() - 1)), limit, IanaLinkRelations.NEXT), fields));
+        }
+        return toSparseCollection(orders, templates, pageLinks);
+    }
+
+    // Under _embedded.orderList like full orders: a map's own relation would be linkedHashMapList
+    private RepresentationModel<?> toSparseCollection(List<Map<String, Object>> orders, LinkFactory.Templates templates,
+                                                      List<Link> collectionLinks) {
+        List<EntityModel<Map<String, Object>>> models = new ArrayList<>(orders.size());
+        for (Map<String, Object> order : orders) {
+            models.add(toSparseModel(order, templates));
+        }
+        return HalModelBuilder.emptyHalModel()
+                .embed(models, ORDERS)
+                .links(collectionLinks)
+                .build();
+    }
+
+    private static long id(Map<String, Object> order) {
+        return ((Number) order.get("id")).longValue();
+    }
+
+    private static Link withFields(Link link, FieldSet<Order> fields) {
+        return LinkFactory.withQueryParam(link, "fields", String.join(",", fields.names()));
+    }
 }
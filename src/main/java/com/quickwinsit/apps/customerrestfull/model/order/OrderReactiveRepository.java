@@ -0,0 +1,73 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import io.r2dbc.spi.Row;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Read-only R2DBC access to the customer_order table for the reactive stack
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class OrderReactiveRepository {
+    private static final String COLUMNS = "select id, description, status, customer_id, version from customer_order";
+    private static final int FETCH_SIZE = 500;
+    private static final Status[] STATUSES = Status.values();
+
+    private final DatabaseClient client;
+
+    @Autowired
+    public OrderReactiveRepository(DatabaseClient d) {
+        this.client = d;
+    }
+
+    public Flux<Order> findAll() {
+        return client.sql(COLUMNS + " order by id")
+                .filter(statement -> statement.fetchSize(FETCH_SIZE))
+                .map(OrderReactiveRepository::order)
+                .all();
+    }
+
+    public Mono<Order> findById(long id) {
+        return client.sql(COLUMNS + " where id = :id")
+                .bind("id", id)
+                .map(OrderReactiveRepository::order)
+                .one();
+    }
+
+    // status is stored by ordinal, as the JPA mapping does
+    private static Order order(Row row) {
+        Integer status = row.get("status", Integer.class);
+        Order order = new Order(row.get("id", Long.class), row.get("description", String.class),
+                status == null ? null : STATUSES[status]);
+        order.setCustomerId(row.get("customer_id", Long.class));
+        order.setVersion(row.get("version", Long.class));
+        return order;
+    }
+}
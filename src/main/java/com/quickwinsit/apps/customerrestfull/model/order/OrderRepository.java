@@ -24,7 +24,87 @@
 
 package com.quickwinsit.apps.customerrestfull.model.order;
 
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+import javax.persistence.QueryHint;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+@CacheConfig(cacheNames = "orders")
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderWriteRepository,
+        OrderFieldsRepository {
+
+    @Override
+    @Cacheable(unless = "#result == null")
+    Optional<Order> findById(Long id);
+
+    @Override
+    @CachePut(key = "#result.id")
+    <S extends Order> S save(S entity);
+
+    // These two return the order together with the status it replaced, which is not what findById caches, so the
+    // entry is dropped rather than refreshed. An upsert that inserts uses a new id, which has no entry to drop.
+    @Override
+    @CacheEvict(key = "#id")
+    ReplacedOrder upsert(long id, Order order);
+
+    @Override
+    @CacheEvict(key = "#id")
+    Optional<ReplacedOrder> replace(long id, Long expectedVersion, Order order);
+
+    @Override
+    @CachePut(key = "#id", unless = "#result == null")
+    Optional<Order> transition(long id, Status from, Status to);
+
+    @Override
+    @CacheEvict
+    void deleteById(Long id);
+
+    // Keyset page: an index seek past the last id the client saw, so every page costs the same
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<Order> findByCustomerIdOrderByIdAsc(long customerId);
+
+    List<Order> findByCustomerIdInOrderByIdAsc(Collection<Long> customerIds);
+
+    // The orders of many customers in one query per thousand customers, instead of one per customer
+    default Map<Long, List<Order>> findByCustomerIds(Collection<Long> customerIds) {
+        Map<Long, List<Order>> orders = new HashMap<>();
+        List<Long> ids = new ArrayList<>(customerIds);
+        for (int from = 0; from < ids.size(); from += 1000) {
+            for (Order order : findByCustomerIdInOrderByIdAsc(ids.subList(from, Math.min(from + 1000, ids.size())))) {
+                orders.computeIfAbsent(order.getCustomerId(), id -> new ArrayList<>()).add(order);
+            }
+        }
+        return orders;
+    }
+
+    @Query("select o.status as status, count(o) as count from Order o where o.status is not null group by o.status")
+    List<StatusCount> countByStatus();
+
+    interface StatusCount {
+        Status getStatus();
+
+        long getCount();
+    }
+
+    // Full scan behind a server-side cursor; must be consumed inside a read-only transaction
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select o from Order o order by o.id")
+    Stream<Order> streamAll();
 }
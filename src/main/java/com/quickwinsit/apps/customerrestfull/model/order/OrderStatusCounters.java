@@ -0,0 +1,114 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Number of orders per status behind GET /orders/stats, so answering it never counts rows. Writers report every
+// change as it happens; a GROUP BY at startup, and again every orders.stats.reconcile-interval, resets the counts
+// to what the database holds and so repairs whatever concurrent writers or missed reports left behind.
+@Component
+public class OrderStatusCounters {
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusCounters.class);
+
+    private final OrderRepository repository;
+    // Changes reported since the last count; LongAdder spreads concurrent writers over separate cells
+    private final Map<Status, LongAdder> changes = new EnumMap<>(Status.class);
+    private volatile Map<Status, Long> counted = Collections.emptyMap();
+
+    @Autowired
+    public OrderStatusCounters(OrderRepository r) {
+        this.repository = r;
+        for (Status status : Status.values()) {
+            changes.put(status, new LongAdder());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${orders.stats.reconcile-interval:PT1M}",
+            initialDelayString = "${orders.stats.reconcile-interval:PT1M}")
+    public synchronized void reconcile() {
+        // A change reported while the query runs is already in its result if it committed first; taking every
+        // change so far off the new base counts those few twice, until the next run
+        Map<Status, Long> reported = sumChanges();
+        Map<Status, Long> base = new EnumMap<>(Status.class);
+        for (Status status : Status.values()) {
+            base.put(status, -reported.get(status));
+        }
+        for (OrderRepository.StatusCount count : repository.countByStatus()) {
+            base.merge(count.getStatus(), count.getCount(), Long::sum);
+        }
+
+        boolean seeded = !counted.isEmpty();
+        Map<Status, Long> previous = counts();
+        counted = base;
+        if (seeded && !previous.equals(counts())) {
+            logger.info("Reconciled order status counts from {} to {}", previous, counts());
+        }
+    }
+
+    public void added(Status status) {
+        if (status != null) {
+            changes.get(status).increment();
+        }
+    }
+
+    public void moved(Status from, Status to) {
+        if (from != to) {
+            if (from != null) {
+                changes.get(from).decrement();
+            }
+            added(to);
+        }
+    }
+
+    public Map<Status, Long> counts() {
+        Map<Status, Long> base = counted;
+        Map<Status, Long> counts = sumChanges();
+        base.forEach((status, count) -> counts.merge(status, count, Long::sum));
+        return counts;
+    }
+
+    private Map<Status, Long> sumChanges() {
+        Map<Status, Long> sums = new EnumMap<>(Status.class);
+        changes.forEach((status, adder) -> sums.put(status, adder.sum()));
+        return sums;
+    }
+}
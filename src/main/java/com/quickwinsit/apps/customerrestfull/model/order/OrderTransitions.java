@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class OrderTransitions {
+    private final OrderRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cache;
+    private final OrderStatusCounters counters;
+    private final Generations generations;
+
+    @Autowired
+    public OrderTransitions(OrderRepository r, PlatformTransactionManager t, CacheManager c, OrderStatusCounters s,
+                            Generations g) {
+        this.repository = r;
+        this.transactionTemplate = new TransactionTemplate(t);
+        this.cache = c.getCache("orders");
+        this.counters = s;
+        this.generations = g;
+    }
+
+    // One UPDATE per target status for the whole batch, then one SELECT to explain whatever did not apply,
+    // all in a single transaction. When an id is listed more than once, its first entry is the one applied.
+    public TransitionResult apply(List<StatusTransition> transitions) {
+        Map<Long, Status> targets = new LinkedHashMap<>();
+        Map<Status, List<Long>> idsByTarget = new EnumMap<>(Status.class);
+        for (StatusTransition transition : transitions) {
+            if (targets.containsKey(transition.getId())) {
+                continue;
+            }
+            targets.put(transition.getId(), transition.getTargetStatus());
+            if (isValidTarget(transition.getTargetStatus())) {
+                idsByTarget.computeIfAbsent(transition.getTargetStatus(), status -> new ArrayList<>()).add(transition.getId());
+            }
+        }
+
+        Map<Long, Order> applied = new HashMap<>();
+        Map<Long, Status> current = transactionTemplate.execute(status -> {
+            idsByTarget.forEach((target, ids) -> {
+                for (Order order : repository.transitionAll(ids, Status.IN_PROGRESS, target)) {
+                    applied.put(order.getId(), order);
+                }
+            });
+            List<Long> rejected = new ArrayList<>();
+            targets.forEach((id, target) -> {
+                if (isValidTarget(target) && !applied.containsKey(id)) {
+                    rejected.add(id);
+                }
+            });
+            return rejected.isEmpty() ? Collections.<Long, Status>emptyMap() : repository.findStatuses(rejected);
+        });
+
+        // Only once the transaction has committed, so a rollback never leaves changed orders in the cache
+        if (cache != null) {
+            applied.values().forEach(order -> cache.put(order.getId(), order));
+        }
+        applied.values().forEach(order -> counters.moved(Status.IN_PROGRESS, order.getStatus()));
+        if (!applied.isEmpty()) {
+            generations.ordersChanged();
+        }
+
+        TransitionResult result = new TransitionResult();
+        targets.forEach((id, target) -> {
+            if (!isValidTarget(target)) {
+                result.add(id, target, TransitionResult.Outcome.INVALID_TARGET, null);
+            } else if (applied.containsKey(id)) {
+                result.add(id, target, TransitionResult.Outcome.APPLIED, target);
+            } else if (current.containsKey(id)) {
+                result.add(id, target, TransitionResult.Outcome.ILLEGAL_TRANSITION, current.get(id));
+            } else {
+                result.add(id, target, TransitionResult.Outcome.NOT_FOUND, null);
+            }
+        });
+        return result;
+    }
+
+    // Orders only ever leave IN_PROGRESS, so a missing target or IN_PROGRESS itself can never apply
+    private static boolean isValidTarget(Status target) {
+        return target != null && target != Status.IN_PROGRESS;
+    }
+}
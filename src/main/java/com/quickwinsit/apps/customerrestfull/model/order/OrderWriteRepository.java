@@ -0,0 +1,50 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Single-statement writes, implemented in native SQL by OrderWriteRepositoryImpl
+public interface OrderWriteRepository {
+
+    // Replaces the order stored under id, or inserts it under a newly allocated id when there is none.
+    // The result carries the id and version the row ended up with, and the status it replaced.
+    ReplacedOrder upsert(long id, Order order);
+
+    // Replaces the order only if it exists and, unless expectedVersion is null, is still at that version
+    Optional<ReplacedOrder> replace(long id, Long expectedVersion, Order order);
+
+    // Moves the order from one status to another only if it is in the first one, returning it as it was stored
+    Optional<Order> transition(long id, Status from, Status to);
+
+    // Set-based transition(): moves every listed order that is in the from status and returns those it changed
+    List<Order> transitionAll(Collection<Long> ids, Status from, Status to);
+
+    // Current status of each listed order that exists
+    Map<Long, Status> findStatuses(Collection<Long> ids);
+}
@@ -0,0 +1,185 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import com.quickwinsit.apps.customerrestfull.model.ReturningStatements;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class OrderWriteRepositoryImpl implements OrderWriteRepository {
+    // The CTE locks the existing row, if any, and hands its status to RETURNING; its id then conflicts and the row
+    // is updated in place. Otherwise the row goes in under the next value of the pooled sequence, like a Hibernate insert.
+    private static final String POSTGRES_UPSERT = "WITH stored AS (SELECT id, status FROM customer_order WHERE id = :id FOR UPDATE) "
+            + "INSERT INTO customer_order AS o (id, description, status, customer_id, version) "
+            + "VALUES (COALESCE((SELECT id FROM stored), nextval('hibernate_sequence')), "
+            + ":description, :status, :customerId, 0) "
+            + "ON CONFLICT (id) DO UPDATE SET description = EXCLUDED.description, status = EXCLUDED.status, "
+            + "customer_id = EXCLUDED.customer_id, version = o.version + 1 "
+            + "RETURNING o.id, o.version, (SELECT status FROM stored) AS previous_status";
+    private static final String POSTGRES_REPLACE = "UPDATE customer_order o SET description = :description, status = :status, "
+            + "customer_id = :customerId, version = o.version + 1 "
+            + "FROM (SELECT id, status FROM customer_order WHERE id = :id FOR UPDATE) stored WHERE o.id = stored.id";
+    private static final String POSTGRES_REPLACE_RETURNING = " RETURNING o.version, stored.status AS previous_status";
+    // H2's FINAL TABLE only sees the new row, so the update reads from OLD TABLE instead: the stored version is one
+    // behind. A MERGE cannot be read from both, so on H2 an upsert that updates nothing inserts with a second statement.
+    private static final String H2_REPLACE = "SELECT version, status AS previous_status FROM OLD TABLE ("
+            + "UPDATE customer_order SET description = :description, status = :status, customer_id = :customerId, "
+            + "version = version + 1 WHERE id = :id%s)";
+    private static final String H2_INSERT = "SELECT id, version FROM FINAL TABLE ("
+            + "INSERT INTO customer_order (id, description, status, customer_id, version) "
+            + "VALUES (NEXT VALUE FOR hibernate_sequence, :description, :status, :customerId, 0))";
+    // The status check and the change are one statement, so of two concurrent transitions only one matches the row
+    private static final String TRANSITION = "UPDATE customer_order SET status = :to, version = version + 1 "
+            + "WHERE id = :id AND status = :from";
+    private static final String TRANSITION_ALL = "UPDATE customer_order SET status = :to, version = version + 1 "
+            + "WHERE id IN (:ids) AND status = :from";
+    private static final String FIND_STATUSES = "SELECT id, status FROM customer_order WHERE id IN (:ids)";
+    // Bind parameters per statement when a list of ids is expanded into IN (...)
+    private static final int IN_LIST_SIZE = 1000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    private final ReturningStatements statements;
+
+    @Autowired
+    public OrderWriteRepositoryImpl(NamedParameterJdbcTemplate j) {
+        this.jdbc = j;
+        this.statements = new ReturningStatements(j);
+    }
+
+    @Override
+    public ReplacedOrder upsert(long id, Order order) {
+        MapSqlParameterSource parameters = parameters(id, order);
+        if (statements.isPostgres()) {
+            return jdbc.query(POSTGRES_UPSERT, parameters, (rs, row) -> {
+                long version = rs.getLong("version");
+                return new ReplacedOrder(copy(rs.getLong("id"), version, order), previousStatus(rs), version == 0L);
+            }).get(0);
+        }
+        return replace(id, null, order).orElseGet(() -> jdbc.query(H2_INSERT, parameters,
+                (rs, row) -> new ReplacedOrder(copy(rs.getLong("id"), rs.getLong("version"), order), null, true)).get(0));
+    }
+
+    @Override
+    public Optional<ReplacedOrder> replace(long id, Long expectedVersion, Order order) {
+        MapSqlParameterSource parameters = parameters(id, order);
+        String versionCheck = "";
+        if (expectedVersion != null) {
+            versionCheck = statements.isPostgres() ? " AND o.version = :version" : " AND version = :version";
+            parameters.addValue("version", expectedVersion);
+        }
+        List<ReplacedOrder> replaced;
+        if (statements.isPostgres()) {
+            replaced = jdbc.query(POSTGRES_REPLACE + versionCheck + POSTGRES_REPLACE_RETURNING, parameters,
+                    (rs, row) -> new ReplacedOrder(copy(id, rs.getLong("version"), order), previousStatus(rs), false));
+        } else {
+            replaced = jdbc.query(String.format(H2_REPLACE, versionCheck), parameters,
+                    (rs, row) -> new ReplacedOrder(copy(id, rs.getLong("version") + 1, order), previousStatus(rs), false));
+        }
+        return replaced.stream().findFirst();
+    }
+
+    @Override
+    public Optional<Order> transition(long id, Status from, Status to) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("id", id)
+                .addValue("from", from.ordinal())
+                .addValue("to", to.ordinal());
+        List<Order> changed = statements.query(TRANSITION, "id, description, customer_id, version", parameters,
+                (rs, row) -> transitioned(rs, to));
+        return changed.stream().findFirst();
+    }
+
+    @Override
+    public List<Order> transitionAll(Collection<Long> ids, Status from, Status to) {
+        List<Order> changed = new ArrayList<>(ids.size());
+        for (List<Long> chunk : chunks(ids)) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("ids", chunk)
+                    .addValue("from", from.ordinal())
+                    .addValue("to", to.ordinal());
+            changed.addAll(statements.query(TRANSITION_ALL, "id, description, customer_id, version", parameters,
+                    (rs, row) -> transitioned(rs, to)));
+        }
+        return changed;
+    }
+
+    @Override
+    public Map<Long, Status> findStatuses(Collection<Long> ids) {
+        Map<Long, Status> statuses = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            jdbc.query(FIND_STATUSES, new MapSqlParameterSource("ids", chunk), rs -> {
+                int status = rs.getInt("status");
+                statuses.put(rs.getLong("id"), rs.wasNull() ? null : Status.values()[status]);
+            });
+        }
+        return statuses;
+    }
+
+    private static List<List<Long>> chunks(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += IN_LIST_SIZE) {
+            chunks.add(all.subList(from, Math.min(from + IN_LIST_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    // Status is stored as its ordinal, as the entity's default JPA mapping does
+    private static MapSqlParameterSource parameters(long id, Order order) {
+        return new MapSqlParameterSource("id", id)
+                .addValue("description", order.getDescription(), Types.VARCHAR)
+                .addValue("status", order.getStatus() == null ? null : order.getStatus().ordinal(), Types.INTEGER)
+                .addValue("customerId", order.getCustomerId(), Types.BIGINT);
+    }
+
+    private static Order copy(long id, long version, Order order) {
+        Order stored = new Order(id, order.getDescription(), order.getStatus());
+        stored.setCustomerId(order.getCustomerId());
+        stored.setVersion(version);
+        return stored;
+    }
+
+    private static Status previousStatus(ResultSet rs) throws SQLException {
+        int status = rs.getInt("previous_status");
+        return rs.wasNull() ? null : Status.values()[status];
+    }
+
+    private static Order transitioned(ResultSet rs, Status status) throws SQLException {
+        Order order = new Order(rs.getLong("id"), rs.getString("description"), status);
+        order.setCustomerId(rs.getObject("customer_id", Long.class));
+        order.setVersion(rs.getLong("version"));
+        return order;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+// An order as a PUT stored it, with the status it replaced, read back by the same statement that wrote it.
+// previousStatus is null when the row was inserted, or when the replaced order had no status.
+public final class ReplacedOrder {
+    private final Order order;
+    private final Status previousStatus;
+    private final boolean inserted;
+
+    public ReplacedOrder(Order order, Status previousStatus, boolean inserted) {
+        this.order = order;
+        this.previousStatus = previousStatus;
+        this.inserted = inserted;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public Status getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public boolean isInserted() {
+        return inserted;
+    }
+}
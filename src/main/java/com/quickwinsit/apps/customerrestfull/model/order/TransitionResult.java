@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.model.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@JsonPropertyOrder({"received", "applied", "notFound", "illegal", "invalid", "outcomes"})
+public class TransitionResult {
+    private long applied;
+    private long notFound;
+    private long illegal;
+    private long invalid;
+    private final List<Entry> outcomes = new ArrayList<>();
+
+    public long getReceived() {
+        return outcomes.size();
+    }
+
+    public long getApplied() {
+        return applied;
+    }
+
+    public long getNotFound() {
+        return notFound;
+    }
+
+    public long getIllegal() {
+        return illegal;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public List<Entry> getOutcomes() {
+        return outcomes;
+    }
+
+    void add(long id, Status targetStatus, Outcome outcome, Status status) {
+        switch (outcome) {
+            case APPLIED:
+                applied++;
+                break;
+            case NOT_FOUND:
+                notFound++;
+                break;
+            case INVALID_TARGET:
+                invalid++;
+                break;
+            default:
+                illegal++;
+        }
+        outcomes.add(new Entry(id, targetStatus, outcome, status));
+    }
+
+    public enum Outcome {
+        APPLIED,
+        NOT_FOUND,
+        ILLEGAL_TRANSITION,
+        // No order can be moved to the requested status, whatever its current one
+        INVALID_TARGET
+    }
+
+    // status is the order's status after the request: the target when applied, the one that prevented it otherwise
+    @JsonPropertyOrder({"id", "targetStatus", "outcome", "status"})
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Entry {
+        private final long id;
+        private final Status targetStatus;
+        private final Outcome outcome;
+        private final Status status;
+
+        Entry(long id, Status targetStatus, Outcome outcome, Status status) {
+            this.id = id;
+            this.targetStatus = targetStatus;
+            this.outcome = outcome;
+            this.status = status;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public Status getTargetStatus() {
+            return targetStatus;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+    }
+}
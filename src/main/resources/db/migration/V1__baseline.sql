@@ -0,0 +1,19 @@
+-- Schema as it existed before migrations were introduced. Existing databases are baselined at this version.
+CREATE SEQUENCE hibernate_sequence START WITH 1 INCREMENT BY 1;
+
+CREATE TABLE customer
+(
+    id         BIGINT NOT NULL,
+    birth_date DATE,
+    first_name VARCHAR(255),
+    last_name  VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE customer_order
+(
+    id          BIGINT NOT NULL,
+    description VARCHAR(255),
+    status      INTEGER,
+    PRIMARY KEY (id)
+);
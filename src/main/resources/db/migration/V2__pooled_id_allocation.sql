@@ -0,0 +1,2 @@
+-- Customer and Order use a pooled optimizer with allocationSize = 50: each nextval reserves a block of 50 ids
+ALTER SEQUENCE hibernate_sequence INCREMENT BY 50;
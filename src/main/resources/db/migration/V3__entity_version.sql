@@ -0,0 +1,3 @@
+-- Optimistic locking column backing @Version, ETag and If-Match on customers and orders
+ALTER TABLE customer ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE customer_order ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
@@ -0,0 +1,5 @@
+-- Orders belong to a customer; orders created before this have none. A customer with orders cannot be deleted.
+ALTER TABLE customer_order ADD COLUMN customer_id BIGINT;
+ALTER TABLE customer_order ADD CONSTRAINT customer_order_customer_fk FOREIGN KEY (customer_id) REFERENCES customer (id);
+-- Serves /customers/{id}/orders and the batched lookup behind ?embed=orders
+CREATE INDEX customer_order_customer_id_idx ON customer_order (customer_id, id);
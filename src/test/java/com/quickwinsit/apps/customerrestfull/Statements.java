@@ -0,0 +1,49 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull;
+
+import com.quickwinsit.apps.customerrestfull.controller.StatementCountInterceptor;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+// mockMvc.perform(...).andExpect(Statements.atMost(2)) in tests that run on a real database: counts every statement
+// the request ran through the DataSource, whichever way it got there
+public final class Statements {
+
+    private Statements() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> {
+            Object count = result.getRequest().getAttribute(StatementCountInterceptor.STATEMENTS_ATTRIBUTE);
+            String request = result.getRequest().getMethod() + " " + result.getRequest().getRequestURI();
+            assertThat("Statements run by " + request + " were not counted", count, notNullValue());
+            assertThat("Statements run by " + request, (Integer) count, lessThanOrEqualTo(statements));
+        };
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class ConnectionPoolHealthIndicatorTests {
+
+    private final HikariDataSource dataSource = mock(HikariDataSource.class);
+    private final HikariPoolMXBean pool = mock(HikariPoolMXBean.class);
+    private final ConnectionPoolHealthIndicator indicator = new ConnectionPoolHealthIndicator(dataSource);
+
+    @BeforeEach
+    void tenConnectionPool() throws Exception {
+        given(dataSource.isWrapperFor(HikariDataSource.class)).willReturn(true);
+        given(dataSource.unwrap(HikariDataSource.class)).willReturn(dataSource);
+        given(dataSource.getHikariPoolMXBean()).willReturn(pool);
+        given(dataSource.getMaximumPoolSize()).willReturn(10);
+        given(pool.getTotalConnections()).willReturn(10);
+    }
+
+    @Test
+    void upWhileNobodyWaits() {
+        given(pool.getActiveConnections()).willReturn(10);
+
+        Health health = indicator.health();
+
+        assertThat(health.getStatus(), is(Status.UP));
+        assertThat(health.getDetails().get("active"), is(10));
+        assertThat(health.getDetails().get("pending"), is(0));
+    }
+
+    @Test
+    void saturatedWhileRequestsWaitForAConnection() {
+        given(pool.getActiveConnections()).willReturn(10);
+        given(pool.getThreadsAwaitingConnection()).willReturn(3);
+
+        Health health = indicator.health();
+
+        assertThat(health.getStatus(), is(ConnectionPoolHealthIndicator.SATURATED));
+        assertThat(health.getDetails().get("pending"), is(3));
+        assertThat(health.getDetails().get("max"), is(10));
+    }
+
+    @Test
+    void unknownBeforeThePoolStarts() {
+        given(dataSource.getHikariPoolMXBean()).willReturn(null);
+
+        assertThat(indicator.health().getStatus(), is(Status.UNKNOWN));
+    }
+}
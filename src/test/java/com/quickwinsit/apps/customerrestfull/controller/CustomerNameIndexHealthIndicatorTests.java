@@ -0,0 +1,62 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerNameIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class CustomerNameIndexHealthIndicatorTests {
+
+    private final CustomerNameIndex nameIndex = mock(CustomerNameIndex.class);
+    private final CustomerNameIndexHealthIndicator indicator = new CustomerNameIndexHealthIndicator(nameIndex);
+
+    @Test
+    void upWhileEveryCustomerIsIndexed() {
+        given(nameIndex.size()).willReturn(42);
+        given(nameIndex.maxEntries()).willReturn(100);
+
+        Health health = indicator.health();
+
+        assertThat(health.getStatus(), is(Status.UP));
+        assertThat(health.getDetails().get("entries"), is(42));
+        assertThat(health.getDetails().get("max"), is(100));
+    }
+
+    @Test
+    void partialOnceCustomersAreLeftOut() {
+        given(nameIndex.isFull()).willReturn(true);
+        given(nameIndex.size()).willReturn(100);
+        given(nameIndex.maxEntries()).willReturn(100);
+
+        assertThat(indicator.health().getStatus(), is(CustomerNameIndexHealthIndicator.PARTIAL));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderDto;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import com.quickwinsit.apps.customerrestfull.proto.CustomerMessages;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.Link;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProtobufMessageConverterTests {
+
+    private final ProtobufMessageConverter converter = new ProtobufMessageConverter();
+
+    @Test
+    void everyStatusHasAMessageValue() throws Exception {
+        for (Status status : Status.values()) {
+            MockHttpOutputMessage output = new MockHttpOutputMessage();
+            converter.write(EntityModel.of(new Order(1L, "iPhone", status)), ProtobufMessageConverter.APPLICATION_PROTOBUF, output);
+
+            CustomerMessages.Order written = CustomerMessages.Order.parseFrom(output.getBodyAsBytes());
+            assertThat(written.getStatus().name(), is(status.name()));
+            OrderDto read = (OrderDto) converter.read(OrderDto.class, new MockHttpInputMessage(written.toByteArray()));
+            assertThat(read.getStatus(), is(status));
+        }
+    }
+
+    @Test
+    void absentFieldsReadAsNull() throws Exception {
+        OrderDto read = (OrderDto) converter.read(OrderDto.class, new MockHttpInputMessage(new byte[0]));
+
+        assertThat(read.getId(), is(nullValue()));
+        assertThat(read.getDescription(), is(nullValue()));
+        assertThat(read.getStatus(), is(nullValue()));
+        assertThat(read.getCustomerId(), is(nullValue()));
+    }
+
+    @Test
+    void unknownStatusIsNotReadable() {
+        byte[] body = CustomerMessages.Order.newBuilder().setStatusValue(9).build().toByteArray();
+
+        assertThrows(HttpMessageNotReadableException.class,
+                () -> converter.read(OrderDto.class, new MockHttpInputMessage(body)));
+    }
+
+    @Test
+    void collectionsCarryTheirItemsAndLinks() throws Exception {
+        Order order = new Order(4L, "iPhone", Status.IN_PROGRESS);
+        order.setCustomerId(2L);
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(CollectionModel.of(List.of(EntityModel.of(order, Link.of("/orders/4"))), Link.of("/orders")),
+                ProtobufMessageConverter.APPLICATION_PROTOBUF, output);
+
+        CustomerMessages.OrderList list = CustomerMessages.OrderList.parseFrom(output.getBodyAsBytes());
+        assertThat(list.getOrdersCount(), is(1));
+        assertThat(list.getOrders(0).getCustomerId(), is(2L));
+        assertThat(list.getOrders(0).getLinks(0).getHref(), is("/orders/4"));
+        assertThat(list.getLinks(0).getRel(), is("self"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.controller;
+
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+class ResponseCacheFilterTests {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final FilterChain chain = (request, response) -> {
+        calls.incrementAndGet();
+        response.setContentType("application/hal+json");
+        response.getOutputStream().write("{\"_embedded\":{}}".getBytes(StandardCharsets.UTF_8));
+    };
+
+    @Test
+    void repeatWithinTheExpiryIsServedFromTheCache() throws Exception {
+        ResponseCacheFilter filter = new ResponseCacheFilter(new Generations(), 1 << 20, Duration.ofMinutes(5));
+
+        MockHttpServletResponse first = get(filter);
+        MockHttpServletResponse second = get(filter);
+
+        assertThat(calls.get(), is(1));
+        assertThat(second.getContentAsString(), is(first.getContentAsString()));
+    }
+
+    @Test
+    void entryIsDroppedOnceItExpires() throws Exception {
+        ResponseCacheFilter filter = new ResponseCacheFilter(new Generations(), 1 << 20, Duration.ofMillis(50));
+
+        get(filter);
+        Thread.sleep(100);
+        get(filter);
+
+        assertThat(calls.get(), is(2));
+    }
+
+    private MockHttpServletResponse get(ResponseCacheFilter filter) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/customers");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        assertThat(response.getStatus(), is(200));
+        return response;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import com.quickwinsit.apps.customerrestfull.controller.AccessLog;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.hateoas.MediaTypes;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(OutputCaptureExtension.class)
+class CustomerAccessLogTests extends IntegrationTests {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void requestsAreLoggedAsSampled(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/customers/999999").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isNotFound());
+        newCustomer("Logged", "New");
+
+        // One writer thread, so once the POST is out anything queued before it is too
+        String posted = "\"method\":\"POST\",\"route\":\"/customers\",\"path\":\"/customers\",\"status\":201";
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!output.getOut().contains(posted) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(output.getOut(), containsString(posted));
+        assertThat(output.getOut(), not(containsString("/customers/999999")));
+        assertThat(registry.get("access.log.dropped").counter().count(), is(0.0));
+    }
+
+    @Test
+    void entriesPastTheQueueAreDroppedAndCounted() throws Exception {
+        // Never started, so nothing takes entries off the queue
+        try (AccessLog accessLog = new AccessLog(2, new SimpleMeterRegistry())) {
+            AccessLog.Entry entry = new AccessLog.Entry(0, "GET", "/customers", "/customers", 200, 10, 1.0);
+            assertThat(accessLog.offer(entry), is(true));
+            assertThat(accessLog.offer(entry), is(true));
+            assertThat(accessLog.offer(entry), is(false));
+            assertThat(accessLog.dropped(), is(1L));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CustomerCacheTests extends IntegrationTests {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    private long customerId;
+
+    @BeforeEach
+    void cacheNewCustomer() throws Exception {
+        cache = cacheManager.getCache("customers");
+        customerId = newCustomer("Cached", "Original");
+        // Start each test from a miss, so the first GET is the one that fills the cache
+        cache.evict(customerId);
+    }
+
+    @Test
+    void readFillsTheCache() throws Exception {
+        getCustomer().andExpect(jsonPath("$.firstName", is("Original")));
+
+        assertThat(cached().getFirstName(), is("Original"));
+    }
+
+    @Test
+    void replaceRefreshesTheCachedCustomer() throws Exception {
+        getCustomer();
+
+        mockMvc.perform(put("/customers/" + customerId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"lastName\":\"Cached\",\"firstName\":\"Replaced\",\"birthDate\":\"01-01-2000\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(cached().getFirstName(), is("Replaced"));
+        assertThat(cached().getVersion(), is(1L));
+        getCustomer().andExpect(jsonPath("$.firstName", is("Replaced")));
+    }
+
+    @Test
+    void deleteEvictsTheCachedCustomer() throws Exception {
+        getCustomer();
+
+        mockMvc.perform(delete("/customers/" + customerId)).andExpect(status().isNoContent());
+
+        assertThat(cache.get(customerId), is(nullValue()));
+        mockMvc.perform(get("/customers/" + customerId).accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void hitsAndMissesArePublished() throws Exception {
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        getCustomer();
+        getCustomer();
+
+        assertThat(gets("miss"), is(misses + 1));
+        assertThat(gets("hit"), is(hits + 1));
+    }
+
+    private ResultActions getCustomer() throws Exception {
+        return mockMvc.perform(get("/customers/" + customerId).accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk());
+    }
+
+    private Customer cached() {
+        Cache.ValueWrapper entry = cache.get(customerId);
+        assertThat(entry, is(notNullValue()));
+        return (Customer) entry.get();
+    }
+
+    private double gets(String result) {
+        FunctionCounter counter = meterRegistry.find("cache.gets")
+                .tags("cache", "customers", "result", result)
+                .functionCounter();
+        assertThat(counter, is(notNullValue()));
+        return counter.count();
+    }
+}
@@ -25,11 +25,25 @@
 package com.quickwinsit.apps.customerrestfull.customer;
 
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.controller.ProtobufMessageConverter;
 import com.quickwinsit.apps.customerrestfull.controller.customer.CustomerController;
+import com.quickwinsit.apps.customerrestfull.model.BulkInserter;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import com.quickwinsit.apps.customerrestfull.model.NdjsonExporter;
 import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
 import com.quickwinsit.apps.customerrestfull.model.customer.CustomerModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerNameIndex;
 import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import com.quickwinsit.apps.customerrestfull.proto.CustomerMessages;
 
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -37,7 +51,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -52,11 +72,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.*;
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(CustomerController.class)
-@Import({CustomerModelAssembler.class})
+@Import({CustomerModelAssembler.class, OrderModelAssembler.class, LinkFactory.class})
 class CustomerControllerTests {
 
     @Autowired
@@ -65,6 +86,21 @@ class CustomerControllerTests {
     @MockBean
     private CustomerRepository customerRepository;
 
+    @MockBean
+    private NdjsonExporter exporter;
+
+    @MockBean
+    private BulkInserter bulkInserter;
+
+    @MockBean
+    private CustomerNameIndex nameIndex;
+
+    @MockBean
+    private OrderRepository orderRepository;
+
+    @MockBean
+    private Generations generations;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -130,6 +166,152 @@ class CustomerControllerTests {
         allRecordsCheckJson(resultsActions);
     }
 
+    @Test
+    void getPageOfRecordsSuccess() throws Exception {
+        given(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).willReturn(getCustomerData());
+        final ResultActions resultsActions = mockMvc.perform(get("/customers?limit=2").accept(MediaTypes.HAL_JSON_VALUE));
+        resultsActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList[0].id", is(1)))
+                .andExpect(jsonPath("$._embedded.customerList[1].id", is(2)))
+                .andExpect(jsonPath("$._embedded.customerList[1]._links.self.href", is("http://localhost/customers/2")))
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/customers?after=0&limit=2")))
+                .andExpect(jsonPath("$._links.next.href", is("http://localhost/customers?after=2&limit=2")));
+    }
+
+    @Test
+    void searchRecordsReturnsPageWithLinks() throws Exception {
+        given(customerRepository.search(any(), any())).willAnswer(invocation -> {
+            Pageable pageable = invocation.getArgument(1);
+            return new SliceImpl<>(getCustomerData(), pageable, true);
+        });
+        mockMvc.perform(get("/customers/search?lastName=Jo&birthDateFrom=01-01-1700&sort=lastName,desc&page=1&size=2")
+                        .accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList[0].id", is(1)))
+                .andExpect(jsonPath("$._embedded.customerList[1]._links.self.href", is("http://localhost/customers/2")))
+                .andExpect(jsonPath("$._links.self.href",
+                        is("http://localhost/customers/search?lastName=Jo&birthDateFrom=01-01-1700&sort=lastName,desc&page=1&size=2")))
+                .andExpect(jsonPath("$._links.next.href",
+                        is("http://localhost/customers/search?lastName=Jo&birthDateFrom=01-01-1700&sort=lastName,desc&page=2&size=2")))
+                .andExpect(jsonPath("$._links.prev.href",
+                        is("http://localhost/customers/search?lastName=Jo&birthDateFrom=01-01-1700&sort=lastName,desc&page=0&size=2")));
+        then(customerRepository).should().search(any(), eq(PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "lastName"))));
+    }
+
+    @Test
+    void searchRecordsByUnknownPropertyFails() throws Exception {
+        mockMvc.perform(get("/customers/search?sort=version"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cannot sort customers by version\n"));
+    }
+
+    @Test
+    void suggestRecordsComesFromNameIndex() throws Exception {
+        given(nameIndex.suggest("joa", 50)).willReturn(getCustomerData());
+        mockMvc.perform(get("/customers/suggest?q=joa&limit=500").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList.length()", is(2)))
+                .andExpect(jsonPath("$._embedded.customerList[0].firstName", is("Joaquim")))
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/customers/suggest?q=joa&limit=50")));
+        then(customerRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void suggestRecordsFromFullIndexAreMarkedTruncated() throws Exception {
+        given(nameIndex.suggest("joa", 10)).willReturn(getCustomerData());
+        mockMvc.perform(get("/customers/suggest?q=joa").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Suggestions-Truncated"));
+
+        given(nameIndex.isFull()).willReturn(true);
+        mockMvc.perform(get("/customers/suggest?q=joa").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Suggestions-Truncated", "true"))
+                .andExpect(jsonPath("$._embedded.customerList.length()", is(2)));
+    }
+
+    @Test
+    void getPageOfRecordsWithOrdersEmbedded() throws Exception {
+        Order order = new Order(7L, "iPhone", Status.IN_PROGRESS);
+        order.setCustomerId(2L);
+        given(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).willReturn(getCustomerData());
+        given(orderRepository.findByCustomerIds(List.of(1L, 2L))).willReturn(Map.of(2L, List.of(order)));
+        mockMvc.perform(get("/customers?after=0&limit=2&embed=orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList[0].id", is(1)))
+                .andExpect(jsonPath("$._embedded.customerList[0]._embedded.orders.length()", is(0)))
+                .andExpect(jsonPath("$._embedded.customerList[1]._embedded.orders[0].id", is(7)))
+                .andExpect(jsonPath("$._embedded.customerList[1]._embedded.orders[0]._links.cancel.href", is("http://localhost/orders/7/cancel")))
+                .andExpect(jsonPath("$._embedded.customerList[1]._links.orders.href", is("http://localhost/customers/2/orders")))
+                .andExpect(jsonPath("$._links.next.href", is("http://localhost/customers?after=2&limit=2&embed=orders")));
+        then(orderRepository).should().findByCustomerIds(any());
+        then(orderRepository).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void getRecordsWithUnknownEmbedFails() throws Exception {
+        mockMvc.perform(get("/customers?embed=invoices"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cannot embed invoices in customers\n"));
+    }
+
+    @Test
+    void getPageOfRecordsWithFields() throws Exception {
+        FieldSet<Customer> fields = CustomerRepository.FIELDS.select(List.of("name"));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Customer customer : getCustomerData()) {
+            rows.add(fields.of(customer));
+        }
+        given(customerRepository.findByIdGreaterThan(eq(0L), eq(2), any())).willReturn(rows);
+        mockMvc.perform(get("/customers?limit=2&fields=name").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList[0].id", is(1)))
+                .andExpect(jsonPath("$._embedded.customerList[0].name", is("Joaquim Jose")))
+                .andExpect(jsonPath("$._embedded.customerList[0].lastName").doesNotExist())
+                .andExpect(jsonPath("$._embedded.customerList[0]._links.self.href", is("http://localhost/customers/1")))
+                .andExpect(jsonPath("$._embedded.customerList[0]._links.customers").doesNotExist())
+                .andExpect(jsonPath("$._links.next.href", is("http://localhost/customers?after=2&limit=2&fields=id,name")));
+        then(customerRepository).should().findByIdGreaterThan(eq(0L), eq(2), argThat(f -> f.names().equals(List.of("id", "name"))));
+        then(customerRepository).shouldHaveNoMoreInteractions();
+    }
+
+    @Test
+    void getSingleRecordWithFields() throws Exception {
+        given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
+        mockMvc.perform(get("/customers/1?fields=lastName,birthDate").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id", is(1)))
+                .andExpect(jsonPath("lastName", is("Jose")))
+                .andExpect(jsonPath("birthDate", is("12-11-1746")))
+                .andExpect(jsonPath("firstName").doesNotExist())
+                .andExpect(jsonPath("_links.self.href", is("http://localhost/customers/1")));
+    }
+
+    @Test
+    void getRecordsWithUnknownFieldFails() throws Exception {
+        mockMvc.perform(get("/customers?fields=id,version"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cannot select version from customers\n"));
+    }
+
+    @Test
+    void getLastPageOfRecordsHasNoNextLink() throws Exception {
+        given(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(Collections.emptyList());
+        mockMvc.perform(get("/customers?after=2&limit=2").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/customers?after=2&limit=2")))
+                .andExpect(jsonPath("$._links.next").doesNotExist());
+    }
+
+    @Test
+    void getPageAfterCursorWithoutLimitUsesDefaultPageSize() throws Exception {
+        given(customerRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(Collections.emptyList());
+        mockMvc.perform(get("/customers?after=2").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/customers?after=2&limit=100")));
+        then(customerRepository).should(never()).findAll();
+    }
+
     @Test
     void getSingleRecordSuccess() throws Exception {
         given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
@@ -138,6 +320,80 @@ class CustomerControllerTests {
         checkJson(resultActions);
     }
 
+    @Test
+    void getSingleRecordWithOrdersEmbedded() throws Exception {
+        Customer customer = getCustomerData().get(0);
+        customer.setVersion(3L);
+        given(customerRepository.findById(1L)).willReturn(Optional.of(customer));
+        given(orderRepository.findByCustomerIdOrderByIdAsc(1L)).willReturn(List.of(new Order(7L, "iPhone", Status.COMPLETED)));
+        mockMvc.perform(get("/customers/1?embed=orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("lastName", is("Jose")))
+                .andExpect(jsonPath("_links.self.href", is("http://localhost/customers/1")))
+                .andExpect(jsonPath("_embedded.orders[0].description", is("iPhone")));
+    }
+
+    @Test
+    void getAllRecordsUnderContextPathSuccess() throws Exception {
+        given(customerRepository.findAll()).willReturn(getCustomerData());
+        mockMvc.perform(get("/api/customers").contextPath("/api").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList[0]._links.self.href", is("http://localhost/api/customers/1")))
+                .andExpect(jsonPath("$._embedded.customerList[1]._links.customers.href", is("http://localhost/api/customers")))
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/api/customers")));
+    }
+
+    @Test
+    void getUnchangedRecordReturnsNotModified() throws Exception {
+        Customer customer = getCustomerData().get(0);
+        customer.setVersion(3L);
+        given(customerRepository.findById(1L)).willReturn(Optional.of(customer));
+        mockMvc.perform(get("/customers/1").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+        mockMvc.perform(get("/customers/1").accept(MediaTypes.HAL_JSON_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void eachRepresentationHasItsOwnETag() throws Exception {
+        Customer customer = getCustomerData().get(0);
+        customer.setVersion(3L);
+        given(customerRepository.findById(1L)).willReturn(Optional.of(customer));
+        mockMvc.perform(get("/customers/1").accept(ProtobufMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-protobuf\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/customers/1").accept("application/json;q=0.5, application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-cbor\""));
+        // The JSON tag does not validate the CBOR copy, and the other way round
+        mockMvc.perform(get("/customers/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/customers/1").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT));
+        mockMvc.perform(get("/customers/1").accept(MediaTypes.HAL_JSON_VALUE).header(HttpHeaders.IF_NONE_MATCH, "\"3-cbor\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void ifMatchTakesTheTagOfAnyRepresentation() throws Exception {
+        Customer customer = getCustomerData().get(0);
+        customer.setVersion(4L);
+        given(customerRepository.replace(eq(1L), eq(3L), any())).willReturn(Optional.of(customer));
+        mockMvc.perform(put("/customers/1")
+                        .content(mapper.writeValueAsBytes(customer))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(ProtobufMessageConverter.APPLICATION_PROTOBUF)
+                        .header(HttpHeaders.IF_MATCH, "\"3-protobuf\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4-protobuf\""));
+    }
+
     @Test
     void insertNewCustomerSuccess() throws Exception {
         Customer customer = getCustomerData().get(0);
@@ -150,25 +406,135 @@ class CustomerControllerTests {
         checkJson(resultActions);
     }
 
+    @Test
+    void insertNewCustomerKeepsCompoundNames() throws Exception {
+        given(customerRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+        mockMvc.perform(post("/customers")
+                        .content("{\"lastName\":\"Van Dyke\",\"firstName\":\"Maria Clara\",\"birthDate\":\"12-11-1746\"}")
+                        .contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("lastName", is("Van Dyke")))
+                .andExpect(jsonPath("firstName", is("Maria Clara")));
+    }
+
+    @Test
+    void getSingleRecordAsCbor() throws Exception {
+        given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
+        byte[] body = mockMvc.perform(get("/customers/1").accept("application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode customer = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(customer.get("lastName").asText(), is("Jose"));
+        assertThat(customer.get("birthDate").asText(), is("12-11-1746"));
+        assertThat(customer.at("/_links/self/href").asText(), is("http://localhost/customers/1"));
+    }
+
+    @Test
+    void getSingleRecordAsProtobuf() throws Exception {
+        given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
+        byte[] body = mockMvc.perform(get("/customers/1").accept(ProtobufMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(ProtobufMessageConverter.APPLICATION_PROTOBUF))
+                .andReturn().getResponse().getContentAsByteArray();
+        CustomerMessages.Customer customer = CustomerMessages.Customer.parseFrom(body);
+        assertThat(customer.getId(), is(1L));
+        assertThat(customer.getLastName(), is("Jose"));
+        assertThat((long) customer.getBirthDate(), is(LocalDate.of(1746, 11, 12).toEpochDay()));
+        assertThat(customer.getLinks(0).getRel(), is("self"));
+        assertThat(customer.getLinks(0).getHref(), is("http://localhost/customers/1"));
+    }
+
+    @Test
+    void getSparseRecordAsProtobufIsNotAcceptable() throws Exception {
+        given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
+        mockMvc.perform(get("/customers/1?fields=name").accept(ProtobufMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isNotAcceptable());
+    }
+
+    @Test
+    void getSingleRecordForAnyMediaTypeIsJson() throws Exception {
+        given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
+        mockMvc.perform(get("/customers/1").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaTypes.HAL_JSON));
+    }
+
+    @Test
+    void insertNewCustomerFromProtobuf() throws Exception {
+        given(customerRepository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+        CustomerMessages.Customer body = CustomerMessages.Customer.newBuilder()
+                .setLastName("Van Dyke")
+                .setFirstName("Maria Clara")
+                .setBirthDate((int) LocalDate.of(1746, 11, 12).toEpochDay())
+                .build();
+        mockMvc.perform(post("/customers")
+                        .content(body.toByteArray())
+                        .contentType(ProtobufMessageConverter.APPLICATION_PROTOBUF)
+                        .accept(MediaTypes.HAL_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("lastName", is("Van Dyke")))
+                .andExpect(jsonPath("firstName", is("Maria Clara")))
+                .andExpect(jsonPath("birthDate", is("12-11-1746")));
+    }
+
     @Test
     void changeCustomerSuccess() throws Exception {
         Customer customer = getCustomerData().get(0);
         customer.setFirstName("firstName_changed");
-        given(customerRepository.save(any())).willReturn(customer);
+        customer.setVersion(1L);
+        given(customerRepository.upsert(eq(1L), any())).willReturn(customer);
         final ResultActions resultActions =
                 mockMvc.perform(put("/customers/1")
                         .content(mapper.writeValueAsBytes(customer))
                         .contentType(MediaType.APPLICATION_JSON));
-        resultActions.andExpect(status().isCreated());
+        resultActions.andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(header().doesNotExist(HttpHeaders.LOCATION));
         checkJsonChanged(resultActions);
     }
 
+    @Test
+    void changeCustomerThatDoesNotExistCreatesIt() throws Exception {
+        Customer customer = new Customer(51L, "Jose", "Joaquim", LocalDate.of(1746, 11, 12));
+        customer.setVersion(0L);
+        given(customerRepository.upsert(eq(1L), any())).willReturn(customer);
+        mockMvc.perform(put("/customers/1")
+                        .content("{\"lastName\":\"Jose\",\"firstName\":\"Joaquim\",\"birthDate\":\"12-11-1746\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "http://localhost/customers/51"))
+                .andExpect(jsonPath("id", is(51)));
+    }
+
+    @Test
+    void changeCustomerWithStaleETagFails() throws Exception {
+        Customer customer = getCustomerData().get(0);
+        given(customerRepository.replace(eq(1L), eq(2L), any())).willReturn(Optional.empty());
+        mockMvc.perform(put("/customers/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2\"")
+                        .content(mapper.writeValueAsBytes(customer))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(content().string("Precondition failed for Customer: 1\n"));
+    }
+
     @Test
     void deleteCustomerSuccess() throws Exception {
         given(customerRepository.findById(1L)).willReturn(Optional.of(getCustomerData().get(0)));
         mockMvc.perform(delete("/customers/1"))
                 .andExpect(status().isNoContent())
                 .andExpect(content().string(""));
+        then(nameIndex).should().remove(1L);
+    }
+
+    @Test
+    void deleteCustomerWithOrdersFails() throws Exception {
+        willThrow(new DataIntegrityViolationException("customer_order_customer_fk")).given(customerRepository).deleteById(1L);
+        mockMvc.perform(delete("/customers/1"))
+                .andExpect(status().isConflict())
+                .andExpect(content().string("Customer 1 still has orders\n"));
+        then(nameIndex).should(never()).remove(anyLong());
     }
 
     @Test
@@ -0,0 +1,109 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CustomerFieldsQueryTests extends IntegrationTests {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seedCustomers() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            customers.add(new Customer("Fields" + i, "First" + i, LocalDate.of(1990, 1, 1).plusDays(i)));
+        }
+        customerRepository.saveAll(customers);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void removeCustomers() {
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void searchWithFieldsSelectsOnlyTheirColumns() throws Exception {
+        mockMvc.perform(get("/customers/search?lastName=fields2&sort=lastName&size=5&fields=name").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList.length()", is(5)))
+                .andExpect(jsonPath("$._embedded.customerList[0].name", is("First2 Fields2")))
+                .andExpect(jsonPath("$._embedded.customerList[1].name", is("First20 Fields20")))
+                .andExpect(jsonPath("$._embedded.customerList[0].birthDate").doesNotExist())
+                .andExpect(jsonPath("$._links.next.href", is("http://localhost/customers/search?lastName=fields2&sort=lastName,asc&page=1&size=5&fields=id,name")));
+
+        assertThat(statistics.getQueries().length, is(1));
+        String query = statistics.getQueries()[0];
+        assertThat(query, containsString("firstName"));
+        assertThat(query, not(containsString("birthDate")));
+        assertThat(query, not(containsString("version")));
+    }
+
+    @Test
+    void pageWithFieldsReadsNoEntities() throws Exception {
+        long after = customerRepository.findAll().stream().mapToLong(Customer::getId).min().getAsLong() - 1;
+        statistics.clear();
+        mockMvc.perform(get("/customers?after=" + after + "&limit=10&fields=lastName,birthDate").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList.length()", is(10)))
+                .andExpect(jsonPath("$._embedded.customerList[0].lastName", is("Fields0")))
+                .andExpect(jsonPath("$._embedded.customerList[0].birthDate", is("01-01-1990")))
+                .andExpect(jsonPath("$._embedded.customerList[0].firstName").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+    }
+}
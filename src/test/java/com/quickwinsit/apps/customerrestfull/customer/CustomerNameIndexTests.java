@@ -0,0 +1,151 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerNameIndex;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.CoreMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class CustomerNameIndexTests {
+
+    private final CustomerNameIndex index = new CustomerNameIndex(null, null, null, 100_000);
+
+    private List<Long> suggest(String q, int limit) {
+        return index.suggest(q, limit).stream().map(Customer::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void suggestRanksNamePrefixThenWordPrefixThenSubstring() {
+        index.put(new Customer(1L, "Albuquerque", "Maria", null));
+        index.put(new Customer(2L, "Quental", "Antero", null));
+        index.put(new Customer(3L, "Silva", "Querida", LocalDate.of(1990, 5, 1)));
+
+        assertThat(suggest("que", 10), is(List.of(3L, 2L, 1L)));
+        assertThat(suggest("que", 1), is(List.of(3L)));
+        assertThat(index.suggest("que", 1).get(0).getBirthDate(), is(LocalDate.of(1990, 5, 1)));
+    }
+
+    @Test
+    void suggestListsNameMatchingInBothPassesOnce() {
+        index.put(new Customer(1L, "Andrade", "Joanna", null));
+        index.put(new Customer(2L, "Silva", "Annabel", null));
+        index.put(new Customer(3L, "Annis", "Hannah", null));
+
+        // "annabel silva" starts with it, "hannah annis" has a later word starting with it (past an earlier
+        // occurrence inside "hannah"), "joanna andrade" only contains it
+        assertThat(suggest("ann", 10), is(List.of(2L, 3L, 1L)));
+    }
+
+    @Test
+    void suggestFindsBestMatchPastThousandsOfWeakerOnes() {
+        for (long id = 1; id <= 5_000; id++) {
+            index.put(new Customer(id, "Negro" + id, "Given", null));
+        }
+        index.put(new Customer(5_001L, "Silva", "Negro", null));
+
+        assertThat(suggest("negro", 1), is(List.of(5_001L)));
+    }
+
+    @Test
+    void indexReportsFullOnceACustomerIsLeftOut() {
+        CustomerNameIndex small = new CustomerNameIndex(null, null, null, 2);
+        small.put(new Customer(1L, "Silva", "Ana", null));
+        small.put(new Customer(2L, "Silva", "Rui", null));
+        assertThat(small.isFull(), is(false));
+
+        small.put(new Customer(3L, "Silva", "Eva", null));
+        small.remove(1L);
+
+        assertThat(small.isFull(), is(true));
+        assertThat(small.suggest("silva", 10).stream().map(Customer::getId).collect(Collectors.toList()), is(List.of(2L)));
+    }
+
+    @Test
+    void loadStopsReadingOnceTheIndexIsFull() {
+        CustomerRepository repository = mock(CustomerRepository.class);
+        AtomicLong read = new AtomicLong();
+        given(repository.streamAll()).willReturn(Stream.iterate(1L, id -> id + 1)
+                .limit(10_000)
+                .peek(id -> read.incrementAndGet())
+                .map(id -> new Customer(id, "Family" + id, "Given", null)));
+        CustomerNameIndex small = new CustomerNameIndex(repository, mock(PlatformTransactionManager.class),
+                mock(EntityManager.class), 100);
+
+        small.load();
+
+        assertThat(small.isFull(), is(true));
+        assertThat(small.size(), is(100));
+        assertThat(read.get(), is(101L));
+    }
+
+    @Test
+    void suggestBreaksTiesBySmallerIdWhateverTheSlotOrder() {
+        index.put(new Customer(3L, "Costa", "Ana", null));
+        index.put(new Customer(2L, "Costa", "Ana", null));
+        index.put(new Customer(1L, "Costa", "Ana", null));
+
+        assertThat(suggest("ana", 2), is(List.of(1L, 2L)));
+    }
+
+    @Test
+    void suggestIgnoresCaseAndAccents() {
+        index.put(new Customer(1L, "Conceição", "João", null));
+
+        assertThat(suggest("JOAO conce", 10), is(List.of(1L)));
+        assertThat(suggest("co", 10), is(List.of(1L)));
+        assertThat(suggest("nc", 10), is(List.of()));
+    }
+
+    @Test
+    void suggestFollowsUpdatesAndDeletes() {
+        for (long id = 1; id <= 5_000; id++) {
+            index.put(new Customer(id, "Family" + id, "Given", null));
+        }
+        for (long id = 1; id <= 5_000; id += 2) {
+            index.put(new Customer(id, "Renamed" + id, "Given", null));
+        }
+        for (long id = 2; id <= 5_000; id += 2) {
+            index.remove(id);
+        }
+
+        assertThat(index.size(), is(2_500));
+        assertThat(suggest("family", 10), is(List.of()));
+        assertThat(suggest("renamed4999", 10), is(List.of(4999L)));
+    }
+}
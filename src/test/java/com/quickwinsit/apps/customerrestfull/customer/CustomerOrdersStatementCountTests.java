@@ -0,0 +1,140 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import com.quickwinsit.apps.customerrestfull.Statements;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.MediaTypes;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class CustomerOrdersStatementCountTests extends IntegrationTests {
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private List<Customer> customers;
+
+    @BeforeEach
+    void seedCustomersWithOrders() {
+        List<Customer> newCustomers = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            newCustomers.add(new Customer("Last" + i, "First" + i, LocalDate.of(1990, 1, 1).plusDays(i)));
+        }
+        customers = customerRepository.saveAll(newCustomers);
+
+        List<Order> orders = new ArrayList<>();
+        for (Customer customer : customers) {
+            for (int i = 0; i < 3; i++) {
+                Order order = new Order("Order " + i + " of " + customer.getId(), Status.IN_PROGRESS);
+                order.setCustomerId(customer.getId());
+                orders.add(order);
+            }
+        }
+        orderRepository.saveAll(orders);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void removeCustomersWithOrders() {
+        orderRepository.deleteAllInBatch();
+        customerRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void pageOfCustomersWithOrdersTakesTwoStatements() throws Exception {
+        long after = customers.get(0).getId() - 1;
+        mockMvc.perform(get("/customers?after=" + after + "&limit=100&embed=orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.customerList.length()", is(100)))
+                .andExpect(jsonPath("$._embedded.customerList[0]._embedded.orders.length()", is(3)))
+                .andExpect(jsonPath("$._embedded.customerList[99]._embedded.orders.length()", is(3)))
+                .andExpect(Statements.atMost(2));
+
+        // One for the page of customers and one for all of their orders, not one more per customer
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    void ordersOfOneCustomerTakeOneStatement() throws Exception {
+        long id = customers.get(42).getId();
+        mockMvc.perform(get("/customers/" + id + "/orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.orderList.length()", is(3)))
+                .andExpect(Statements.atMost(1));
+
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+
+    @Test
+    void statementsEndpointRanksRoutesByStatementsPerRequest() throws Exception {
+        mockMvc.perform(delete("/actuator/statements")).andExpect(status().isNoContent());
+        long after = customers.get(0).getId() - 1;
+        mockMvc.perform(get("/customers?after=" + after + "&limit=10&embed=orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/customers/" + customers.get(0).getId() + "/orders").accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/statements"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.routes[0].route", is("GET /customers")))
+                .andExpect(jsonPath("$.routes[0].requests", is(1)))
+                .andExpect(jsonPath("$.routes[0].maxStatements", is(2)))
+                .andExpect(jsonPath("$.routes[1].route", is("GET /customers/{id}/orders")))
+                .andExpect(jsonPath("$.routes[1].maxStatements", is(1)))
+                .andExpect(jsonPath("$.statements.length()", is(3)))
+                .andExpect(jsonPath("$.hibernate.enabled", is(true)));
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.customer;
+
+import com.quickwinsit.apps.customerrestfull.controller.HalStreamWriter;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.controller.customer.CustomerReactiveController;
+import com.quickwinsit.apps.customerrestfull.model.customer.Customer;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerModelAssembler;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerReactiveRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+
+import static org.mockito.BDDMockito.given;
+
+@WebFluxTest(CustomerReactiveController.class)
+@Import({CustomerModelAssembler.class, OrderModelAssembler.class, LinkFactory.class, HalStreamWriter.class})
+class CustomerReactiveControllerTests {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private CustomerReactiveRepository customerRepository;
+
+    private Customer getCustomer(long id, String lastName) {
+        Customer customer = new Customer(id, lastName, "Joaquim", LocalDate.of(1746, 11, 12));
+        customer.setVersion(3L);
+        return customer;
+    }
+
+    @Test
+    void getAllRecordsStreamsHalCollection() {
+        given(customerRepository.findAll()).willReturn(Flux.just(getCustomer(1L, "Jose"), getCustomer(2L, "Silverio")));
+        webTestClient.get().uri("http://localhost/customers").accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded.customerList[0].id").isEqualTo(1)
+                .jsonPath("$._embedded.customerList[0].lastName").isEqualTo("Jose")
+                .jsonPath("$._embedded.customerList[0].birthDate").isEqualTo("12-11-1746")
+                .jsonPath("$._embedded.customerList[0]._links.self.href").isEqualTo("http://localhost/customers/1")
+                .jsonPath("$._embedded.customerList[0]._links.customers.href").isEqualTo("http://localhost/customers")
+                .jsonPath("$._embedded.customerList[1].id").isEqualTo(2)
+                .jsonPath("$._embedded.customerList[1].lastName").isEqualTo("Silverio")
+                .jsonPath("$._embedded.customerList[1]._links.self.href").isEqualTo("http://localhost/customers/2")
+                .jsonPath("$._links.self.href").isEqualTo("http://localhost/customers");
+    }
+
+    @Test
+    void getAllRecordsEmpty() {
+        given(customerRepository.findAll()).willReturn(Flux.empty());
+        webTestClient.get().uri("http://localhost/customers").accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$._embedded").doesNotExist()
+                .jsonPath("$._links.self.href").isEqualTo("http://localhost/customers");
+    }
+
+    @Test
+    void getSingleRecordWithETag() {
+        given(customerRepository.findById(1L)).willReturn(Mono.just(getCustomer(1L, "Jose")));
+        webTestClient.get().uri("http://localhost/customers/1").accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.name").isEqualTo("Joaquim Jose")
+                .jsonPath("$._links.self.href").isEqualTo("http://localhost/customers/1");
+
+        webTestClient.get().uri("http://localhost/customers/1").accept(MediaTypes.HAL_JSON)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    void getSingleRecordNotFound() {
+        given(customerRepository.findById(1L)).willReturn(Mono.empty());
+        webTestClient.get().uri("http://localhost/customers/1").accept(MediaTypes.HAL_JSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
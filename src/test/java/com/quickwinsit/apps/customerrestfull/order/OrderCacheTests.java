@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.order;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import com.quickwinsit.apps.customerrestfull.model.order.Order;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderCacheTests extends IntegrationTests {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache cache;
+
+    private long orderId;
+
+    @BeforeEach
+    void cacheNewOrder() throws Exception {
+        cache = cacheManager.getCache("orders");
+        orderId = newOrder();
+        // Start each test from a miss, so the first GET is the one that fills the cache
+        cache.evict(orderId);
+        getOrder().andExpect(jsonPath("$.status", is("IN_PROGRESS")));
+        assertThat(cached().getStatus(), is(Status.IN_PROGRESS));
+    }
+
+    @Test
+    void changeEvictsTheCachedOrder() throws Exception {
+        mockMvc.perform(put("/orders/" + orderId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Replaced\",\"status\":\"IN_PROGRESS\"}"))
+                .andExpect(status().isOk());
+
+        assertThat(cache.get(orderId), is(nullValue()));
+        getOrder().andExpect(jsonPath("$.description", is("Replaced")));
+        assertThat(cached().getDescription(), is("Replaced"));
+    }
+
+    @Test
+    void cancelRefreshesTheCachedOrder() throws Exception {
+        mockMvc.perform(delete("/orders/" + orderId + "/cancel")).andExpect(status().isOk());
+
+        assertThat(cached().getStatus(), is(Status.CANCELLED));
+        getOrder().andExpect(jsonPath("$.status", is("CANCELLED")));
+    }
+
+    @Test
+    void completeRefreshesTheCachedOrder() throws Exception {
+        mockMvc.perform(put("/orders/" + orderId + "/complete")).andExpect(status().isOk());
+
+        assertThat(cached().getStatus(), is(Status.COMPLETED));
+        getOrder().andExpect(jsonPath("$.status", is("COMPLETED")));
+    }
+
+    @Test
+    void bulkTransitionRefreshesTheCachedOrder() throws Exception {
+        mockMvc.perform(post("/orders/transitions").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + orderId + ",\"targetStatus\":\"COMPLETED\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(1)));
+
+        assertThat(cached().getStatus(), is(Status.COMPLETED));
+        getOrder().andExpect(jsonPath("$.status", is("COMPLETED")));
+    }
+
+    @Test
+    void cacheMetricsArePublished() {
+        for (String result : new String[]{"hit", "miss"}) {
+            assertThat(meterRegistry.find("cache.gets").tags("cache", "orders", "result", result).functionCounter(),
+                    is(notNullValue()));
+        }
+    }
+
+    private ResultActions getOrder() throws Exception {
+        return mockMvc.perform(get("/orders/" + orderId).accept(MediaTypes.HAL_JSON_VALUE))
+                .andExpect(status().isOk());
+    }
+
+    private Order cached() {
+        Cache.ValueWrapper entry = cache.get(orderId);
+        assertThat(entry, is(notNullValue()));
+        return (Order) entry.get();
+    }
+}
@@ -24,37 +24,61 @@
 
 package com.quickwinsit.apps.customerrestfull.order;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.quickwinsit.apps.customerrestfull.controller.LinkFactory;
+import com.quickwinsit.apps.customerrestfull.controller.ProtobufMessageConverter;
 import com.quickwinsit.apps.customerrestfull.controller.order.OrderController;
+import com.quickwinsit.apps.customerrestfull.model.BulkInserter;
+import com.quickwinsit.apps.customerrestfull.model.FieldSet;
+import com.quickwinsit.apps.customerrestfull.model.Generations;
+import com.quickwinsit.apps.customerrestfull.model.NdjsonExporter;
+import com.quickwinsit.apps.customerrestfull.model.customer.CustomerRepository;
 import com.quickwinsit.apps.customerrestfull.model.order.Order;
 import com.quickwinsit.apps.customerrestfull.model.order.OrderModelAssembler;
 import com.quickwinsit.apps.customerrestfull.model.order.OrderRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderStatusCounters;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderTransitions;
+import com.quickwinsit.apps.customerrestfull.model.order.ReplacedOrder;
 import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import com.quickwinsit.apps.customerrestfull.model.order.TransitionResult;
+import com.quickwinsit.apps.customerrestfull.proto.CustomerMessages;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.BDDMockito.any;
+import static org.mockito.BDDMockito.anyList;
+import static org.mockito.BDDMockito.argThat;
+import static org.mockito.BDDMockito.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.never;
+import static org.mockito.BDDMockito.then;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
 @RunWith(SpringRunner.class)
 @WebMvcTest(OrderController.class)
-@Import(OrderModelAssembler.class)
+@Import({OrderModelAssembler.class, LinkFactory.class})
 class OrderControllerTests {
 
     @Autowired
@@ -63,6 +87,24 @@ class OrderControllerTests {
     @MockBean
     private OrderRepository orderRepository;
 
+    @MockBean
+    private NdjsonExporter exporter;
+
+    @MockBean
+    private BulkInserter bulkInserter;
+
+    @MockBean
+    private OrderTransitions orderTransitions;
+
+    @MockBean
+    private CustomerRepository customerRepository;
+
+    @MockBean
+    private OrderStatusCounters counters;
+
+    @MockBean
+    private Generations generations;
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -131,6 +173,82 @@ class OrderControllerTests {
         checkAllOrderRecordsJson(resultsActions);
     }
 
+    @Test
+    void getPageOfRecordsSuccess() throws Exception {
+        given(orderRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(getOrderData());
+        final ResultActions resultsActions = mockMvc.perform(get("/orders?after=2&limit=3").accept(MediaType.APPLICATION_JSON));
+        resultsActions.andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.orderList[0].id", is(3)))
+                .andExpect(jsonPath("$._embedded.orderList[2].id", is(5)))
+                .andExpect(jsonPath("$._embedded.orderList[1]._links.cancel.href", is("http://localhost/orders/4/cancel")))
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/orders?after=2&limit=3")))
+                .andExpect(jsonPath("$._links.next.href", is("http://localhost/orders?after=5&limit=3")));
+    }
+
+    @Test
+    void getPageAfterCursorWithoutLimitUsesDefaultPageSize() throws Exception {
+        given(orderRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(getOrderData());
+        mockMvc.perform(get("/orders?after=2").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/orders?after=2&limit=100")));
+        then(orderRepository).should(never()).findAll();
+    }
+
+    @Test
+    void getAllRecordsWithFields() throws Exception {
+        FieldSet<Order> fields = OrderRepository.FIELDS.select(List.of("status"));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Order order : getOrderData()) {
+            rows.add(fields.of(order));
+        }
+        given(orderRepository.findAll(any(FieldSet.class))).willReturn(rows);
+        mockMvc.perform(get("/orders?fields=status").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.orderList[1].id", is(4)))
+                .andExpect(jsonPath("$._embedded.orderList[1].status", is("IN_PROGRESS")))
+                .andExpect(jsonPath("$._embedded.orderList[1].description").doesNotExist())
+                .andExpect(jsonPath("$._embedded.orderList[1]._links.self.href", is("http://localhost/orders/4")))
+                .andExpect(jsonPath("$._embedded.orderList[1]._links.cancel").doesNotExist())
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/orders?fields=id,status")));
+    }
+
+    @Test
+    void getRecordsWithUnknownFieldFails() throws Exception {
+        mockMvc.perform(get("/orders?after=2&limit=3&fields=version"))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Cannot select version from orders\n"));
+    }
+
+    @Test
+    void getPageOfRecordsAsProtobuf() throws Exception {
+        given(orderRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(getOrderData());
+        byte[] body = mockMvc.perform(get("/orders?after=2&limit=3").accept(ProtobufMessageConverter.APPLICATION_PROTOBUF))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        CustomerMessages.OrderList page = CustomerMessages.OrderList.parseFrom(body);
+        assertThat(page.getOrdersCount(), is(3));
+        CustomerMessages.Order inProgress = page.getOrders(1);
+        assertThat(inProgress.getId(), is(4L));
+        assertThat(inProgress.getDescription(), is("iPhone"));
+        // IN_PROGRESS, plus self, orders, cancel and complete links
+        assertThat(inProgress.getStatus(), is(CustomerMessages.Status.IN_PROGRESS));
+        assertThat(inProgress.getLinksCount(), is(4));
+        // self and next
+        assertThat(page.getLinksCount(), is(2));
+    }
+
+    @Test
+    void getPageOfRecordsAsSmile() throws Exception {
+        given(orderRepository.findByIdGreaterThanOrderByIdAsc(eq(2L), any())).willReturn(getOrderData());
+        byte[] body = mockMvc.perform(get("/orders?after=2&limit=3").accept("application/x-jackson-smile"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        JsonNode page = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(page.at("/_embedded/orderList/1/status").asText(), is("IN_PROGRESS"));
+        assertThat(page.at("/_embedded/orderList/1/_links/cancel/href").asText(), is("http://localhost/orders/4/cancel"));
+        assertThat(page.at("/_links/next/href").asText(), is("http://localhost/orders?after=5&limit=3"));
+    }
+
     @Test
     void getSingleRecordSuccess() throws Exception {
         given(orderRepository.findById(3L)).willReturn(Optional.of(getOrderData().get(0)));
@@ -139,6 +257,40 @@ class OrderControllerTests {
         checkSingleOrderJson(resultsActions);
     }
 
+    @Test
+    void getOrdersOfCustomerSuccess() throws Exception {
+        Order order = getOrderData().get(1);
+        order.setCustomerId(1L);
+        given(orderRepository.findByCustomerIdOrderByIdAsc(1L)).willReturn(List.of(order));
+        mockMvc.perform(get("/customers/1/orders").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.orderList[0].id", is(4)))
+                .andExpect(jsonPath("$._embedded.orderList[0].customerId", is(1)))
+                .andExpect(jsonPath("$._embedded.orderList[0]._links.customer.href", is("http://localhost/customers/1")))
+                .andExpect(jsonPath("$._links.self.href", is("http://localhost/customers/1/orders")));
+        then(customerRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void getOrdersOfCustomerThatDoesNotExistReturnsError() throws Exception {
+        given(orderRepository.findByCustomerIdOrderByIdAsc(9L)).willReturn(List.of());
+        given(customerRepository.findById(9L)).willReturn(Optional.empty());
+        mockMvc.perform(get("/customers/9/orders"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Could not find Customer: 9\n"));
+    }
+
+    @Test
+    void getUnchangedRecordReturnsNotModified() throws Exception {
+        Order order = getOrderData().get(0);
+        order.setVersion(7L);
+        given(orderRepository.findById(3L)).willReturn(Optional.of(order));
+        mockMvc.perform(get("/orders/3").accept(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""))
+                .andExpect(content().string(""));
+    }
+
     @Test
     void insertNewOrderSuccess() throws Exception {
         Order order = getOrderData().get(0);
@@ -151,37 +303,86 @@ class OrderControllerTests {
         checkSingleOrderJson(resultActions);
     }
 
+    @Test
+    void insertOrderForUnknownCustomerFails() throws Exception {
+        Order order = getOrderData().get(0);
+        order.setCustomerId(9L);
+        given(customerRepository.findById(9L)).willReturn(Optional.empty());
+        mockMvc.perform(post("/orders")
+                        .content(mapper.writeValueAsBytes(order))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("Could not find Customer: 9\n"));
+        then(orderRepository).should(never()).save(any());
+    }
+
     @Test
     void changeOrderSuccess() throws Exception {
         Order order = getOrderData().get(0);
-        given(orderRepository.save(any())).willReturn(order);
+        order.setVersion(1L);
+        given(orderRepository.upsert(eq(3L), any())).willReturn(new ReplacedOrder(order, Status.IN_PROGRESS, false));
         final ResultActions resultActions =
                 mockMvc.perform(put("/orders/3")
                         .content(mapper.writeValueAsBytes(order))
                         .contentType(MediaType.APPLICATION_JSON));
-        resultActions.andExpect(status().isCreated());
+        resultActions.andExpect(status().isOk());
         checkSingleOrderJson(resultActions);
+        // The status it replaced comes back with the write, not from a read before it
+        then(orderRepository).should(never()).findById(any());
+        then(counters).should().moved(Status.IN_PROGRESS, Status.COMPLETED);
     }
 
     @Test
     void cancelOrderSuccess() throws Exception {
-        given(orderRepository.findById(4L)).willReturn(Optional.of(getOrderData().get(1)));
+        given(orderRepository.transition(4L, Status.IN_PROGRESS, Status.CANCELLED))
+                .willReturn(Optional.of(new Order(4L, "iPhone", Status.CANCELLED)));
         final ResultActions resultsActions =
                 mockMvc.perform(delete("/orders/4/cancel"));
         resultsActions.andExpect(status().isOk());
         checkSingleOrderCancelled(resultsActions);
-
+        then(orderRepository).should(never()).findById(any());
+        then(counters).should().moved(Status.IN_PROGRESS, Status.CANCELLED);
     }
 
     @Test
     void completeOrderSuccess() throws Exception {
-        given(orderRepository.findById(4L)).willReturn(Optional.of(getOrderData().get(1)));
+        given(orderRepository.transition(4L, Status.IN_PROGRESS, Status.COMPLETED))
+                .willReturn(Optional.of(new Order(4L, "iPhone", Status.COMPLETED)));
         final ResultActions resultsActions =
                 mockMvc.perform(put("/orders/4/complete"));
         resultsActions.andExpect(status().isOk());
         checkSingleOrderCompleted(resultsActions);
     }
 
+    @Test
+    void getOrderStatsFromCounters() throws Exception {
+        Map<Status, Long> counts = new EnumMap<>(Status.class);
+        counts.put(Status.IN_PROGRESS, 12L);
+        counts.put(Status.COMPLETED, 30L);
+        counts.put(Status.CANCELLED, 4L);
+        given(counters.counts()).willReturn(counts);
+        mockMvc.perform(get("/orders/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("IN_PROGRESS", is(12)))
+                .andExpect(jsonPath("COMPLETED", is(30)))
+                .andExpect(jsonPath("CANCELLED", is(4)));
+        then(orderRepository).shouldHaveNoInteractions();
+    }
+
+    @Test
+    void transitionManyOrdersInOneRequest() throws Exception {
+        given(orderTransitions.apply(anyList())).willReturn(new TransitionResult());
+        mockMvc.perform(post("/orders/transitions")
+                        .content("[{\"id\":4,\"targetStatus\":\"COMPLETED\"},{\"id\":3,\"targetStatus\":\"CANCELLED\"}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("received", is(0)))
+                .andExpect(jsonPath("outcomes").isArray());
+        then(orderTransitions).should().apply(argThat(transitions -> transitions.size() == 2
+                && transitions.get(0).getId() == 4L && transitions.get(0).getTargetStatus() == Status.COMPLETED
+                && transitions.get(1).getId() == 3L && transitions.get(1).getTargetStatus() == Status.CANCELLED));
+    }
+
     @Test
     void getOrderThatDoesNotExistReturnsError() throws Exception {
         given(orderRepository.findById(3L)).willReturn(Optional.empty());
@@ -198,6 +399,14 @@ class OrderControllerTests {
         resultsActions.andExpect(status().isMethodNotAllowed());
     }
 
+    @Test
+    void cancelOrderThatDoesNotExistReturnsError() throws Exception {
+        given(orderRepository.findById(10L)).willReturn(Optional.empty());
+        mockMvc.perform(delete("/orders/10/cancel"))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string("Could not find Order: 10\n"));
+    }
+
     @Test
     void tryChangeStatusOfACompletedOrderShouldBeFail() throws Exception {
         given(orderRepository.findById(3L)).willReturn(Optional.of(getOrderData().get(0)));
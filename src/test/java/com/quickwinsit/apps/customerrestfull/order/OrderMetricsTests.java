@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.order;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import org.junit.jupiter.api.Test;
+import org.springframework.hateoas.MediaTypes;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderMetricsTests extends IntegrationTests {
+
+    @Test
+    void routesAndRepositoriesHaveLatencyHistograms() throws Exception {
+        long customerId = newCustomer("Timed", "New");
+        long orderId = newOrder("{\"description\":\"Timed\",\"customerId\":" + customerId + "}");
+        mockMvc.perform(put("/orders/" + orderId + "/complete")).andExpect(status().isOk());
+        mockMvc.perform(delete("/orders/" + orderId + "/cancel")).andExpect(status().isMethodNotAllowed());
+        mockMvc.perform(get("/customers/999999").accept(MediaTypes.HAL_JSON_VALUE)).andExpect(status().isNotFound());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape, containsString("http_server_requests_seconds_bucket{exception=\"None\",method=\"DELETE\","
+                + "outcome=\"CLIENT_ERROR\",status=\"405\",uri=\"/orders/{id}/cancel\",le="));
+        assertThat(scrape, containsString("http_server_requests_seconds_bucket{exception=\"CustomerNotFoundException\","
+                + "method=\"GET\",outcome=\"CLIENT_ERROR\",status=\"404\",uri=\"/customers/{id}\",le="));
+        assertThat(scrape, containsString("spring_data_repository_invocations_seconds_bucket{exception=\"None\","
+                + "method=\"transition\",repository=\"OrderRepository\",state=\"SUCCESS\",le="));
+        assertThat(scrape, containsString("spring_data_repository_invocations_seconds_bucket{exception=\"None\","
+                + "method=\"save\",repository=\"CustomerRepository\",state=\"SUCCESS\",le="));
+    }
+}
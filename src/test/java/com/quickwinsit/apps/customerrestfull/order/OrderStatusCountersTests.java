@@ -0,0 +1,86 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.order;
+
+import com.quickwinsit.apps.customerrestfull.model.order.OrderRepository;
+import com.quickwinsit.apps.customerrestfull.model.order.OrderStatusCounters;
+import com.quickwinsit.apps.customerrestfull.model.order.Status;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class OrderStatusCountersTests {
+
+    private final OrderRepository repository = mock(OrderRepository.class);
+    private final OrderStatusCounters counters = new OrderStatusCounters(repository);
+
+    private static OrderRepository.StatusCount count(Status status, long count) {
+        return new OrderRepository.StatusCount() {
+            @Override
+            public Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+
+    @Test
+    void countsFollowReportedChanges() {
+        given(repository.countByStatus()).willReturn(List.of(count(Status.IN_PROGRESS, 5), count(Status.COMPLETED, 2)));
+        counters.load();
+
+        counters.added(Status.IN_PROGRESS);
+        counters.moved(Status.IN_PROGRESS, Status.CANCELLED);
+        counters.moved(Status.IN_PROGRESS, Status.COMPLETED);
+
+        assertThat(counters.counts().get(Status.IN_PROGRESS), is(4L));
+        assertThat(counters.counts().get(Status.COMPLETED), is(3L));
+        assertThat(counters.counts().get(Status.CANCELLED), is(1L));
+    }
+
+    @Test
+    void reconcileReplacesCountsWithTheDatabases() {
+        given(repository.countByStatus()).willReturn(List.of(count(Status.IN_PROGRESS, 5)));
+        counters.load();
+        counters.added(Status.IN_PROGRESS);
+
+        // One insert the counters were told about, and one they missed
+        given(repository.countByStatus()).willReturn(List.of(count(Status.IN_PROGRESS, 7)));
+        counters.reconcile();
+
+        assertThat(counters.counts().get(Status.IN_PROGRESS), is(7L));
+        counters.added(Status.IN_PROGRESS);
+        assertThat(counters.counts().get(Status.IN_PROGRESS), is(8L));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.order;
+
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderTransitionsTests extends IntegrationTests {
+
+    @Test
+    void targetsNoOrderCanReachAreReportedAsInvalid() throws Exception {
+        long inProgress = newOrder();
+        long missingTarget = newOrder();
+        long completed = newOrder();
+
+        mockMvc.perform(post("/orders/transitions").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + inProgress + ",\"targetStatus\":\"IN_PROGRESS\"},"
+                                + "{\"id\":" + missingTarget + "},"
+                                + "{\"id\":" + completed + ",\"targetStatus\":\"COMPLETED\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(3)))
+                .andExpect(jsonPath("$.applied", is(1)))
+                .andExpect(jsonPath("$.illegal", is(0)))
+                .andExpect(jsonPath("$.invalid", is(2)))
+                .andExpect(jsonPath("$.outcomes[0].outcome", is("INVALID_TARGET")))
+                .andExpect(jsonPath("$.outcomes[0].status").doesNotExist())
+                .andExpect(jsonPath("$.outcomes[1].outcome", is("INVALID_TARGET")))
+                .andExpect(jsonPath("$.outcomes[1].targetStatus").doesNotExist())
+                .andExpect(jsonPath("$.outcomes[2].outcome", is("APPLIED")));
+
+        mockMvc.perform(get("/orders/" + inProgress))
+                .andExpect(jsonPath("$.status", is("IN_PROGRESS")));
+    }
+
+    @Test
+    void leavingAFinalStatusIsStillIllegal() throws Exception {
+        long orderId = newOrder();
+        mockMvc.perform(put("/orders/" + orderId + "/complete")).andExpect(status().isOk());
+
+        mockMvc.perform(post("/orders/transitions").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":" + orderId + ",\"targetStatus\":\"CANCELLED\"},"
+                                + "{\"id\":999999,\"targetStatus\":\"CANCELLED\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(0)))
+                .andExpect(jsonPath("$.illegal", is(1)))
+                .andExpect(jsonPath("$.notFound", is(1)))
+                .andExpect(jsonPath("$.invalid", is(0)))
+                .andExpect(jsonPath("$.outcomes[0].status", is("COMPLETED")));
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) [2016-2021] [Ivan Claudio Fernandes]
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package com.quickwinsit.apps.customerrestfull.order;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.quickwinsit.apps.customerrestfull.IntegrationTests;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderUpsertTests extends IntegrationTests {
+
+    @Test
+    void replacingAnOrderMovesItsStatusCount() throws Exception {
+        long orderId = newOrder();
+        JsonNode before = stats();
+
+        mockMvc.perform(put("/orders/" + orderId).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Replaced\",\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id", is((int) orderId)))
+                .andExpect(jsonPath("$.status", is("COMPLETED")));
+
+        JsonNode after = stats();
+        assertThat(after.get("IN_PROGRESS").asLong(), is(before.get("IN_PROGRESS").asLong() - 1));
+        assertThat(after.get("COMPLETED").asLong(), is(before.get("COMPLETED").asLong() + 1));
+    }
+
+    @Test
+    void upsertingAMissingOrderInsertsAndCountsIt() throws Exception {
+        JsonNode before = stats();
+
+        String body = mockMvc.perform(put("/orders/999999").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"description\":\"Upserted\",\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(mapper.readTree(body).get("id").asLong(), is(not(999999L)));
+        assertThat(stats().get("CANCELLED").asLong(), is(before.get("CANCELLED").asLong() + 1));
+    }
+
+    @Test
+    void staleIfMatchChangesNothing() throws Exception {
+        long orderId = newOrder();
+        JsonNode before = stats();
+
+        mockMvc.perform(put("/orders/" + orderId).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"5\"")
+                        .content("{\"description\":\"Stale\",\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/orders/" + orderId).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .content("{\"description\":\"Current\",\"status\":\"CANCELLED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        JsonNode after = stats();
+        assertThat(after.get("COMPLETED").asLong(), is(before.get("COMPLETED").asLong()));
+        assertThat(after.get("CANCELLED").asLong(), is(before.get("CANCELLED").asLong() + 1));
+    }
+
+    private JsonNode stats() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/orders/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}